@@ -0,0 +1,17 @@
+package com.budget.planning;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+//the whole application on the perf profile database, seeded from data.sql
+public class EmbeddedApplication {
+    public static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(BudgetPlanningApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("perf")
+                .run("--budget.perf.database=mem:" + database,
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--logging.level.root=WARN");
+    }
+}
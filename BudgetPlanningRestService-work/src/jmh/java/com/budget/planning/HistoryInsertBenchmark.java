@@ -0,0 +1,87 @@
+package com.budget.planning;
+
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.BankHistory;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+//history rows inserted the way a journal flush writes them, identity keys cost a statement per row,
+//pooled ids let hibernate send the transaction's rows as jdbc batches
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryInsertBenchmark {
+    static final int ROWS_PER_TRANSACTION = 50;
+
+    @Param({"identity", "pooled"})
+    String ids;
+
+    ConfigurableApplicationContext context;
+    EntityManager entityManager;
+    TransactionTemplate transactionTemplate;
+    User user;
+    BankAccount bankAccount;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start("insert" + ids);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        user = context.getBean(UserRepository.class).findUserByEmail("vova@gmail.com").orElseThrow();
+        bankAccount = context.getBean(BankAccountRepository.class).findById(1L).orElseThrow();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insert() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                entityManager.persist(ids.equals("identity") ? identityRow(now, i) : pooledRow(now, i));
+            }
+        });
+    }
+
+    private IdentityBankHistory identityRow(LocalDateTime timestamp, int amount) {
+        return IdentityBankHistory.builder()
+                .operation("replenish")
+                .reason("benchmark")
+                .timestamp(timestamp)
+                .amount(amount)
+                .user(entityManager.getReference(User.class, user.getUser_id()))
+                .bankAccount(entityManager.getReference(BankAccount.class, bankAccount.getId()))
+                .build();
+    }
+
+    private BankHistory pooledRow(LocalDateTime timestamp, int amount) {
+        return BankHistory.builder()
+                .operation("replenish")
+                .reason("benchmark")
+                .timestamp(timestamp)
+                .amount(amount)
+                .user(entityManager.getReference(User.class, user.getUser_id()))
+                .bankAccount(entityManager.getReference(BankAccount.class, bankAccount.getId()))
+                .build();
+    }
+}
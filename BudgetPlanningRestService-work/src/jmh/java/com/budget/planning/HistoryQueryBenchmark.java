@@ -0,0 +1,74 @@
+package com.budget.planning;
+
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.BankHistory;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.UserRepository;
+import com.budget.planning.repository.projection.BankHistoryView;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//the last month filter over an account whose history spans a year, so most rows are outside the window
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryQueryBenchmark {
+    @Param({"1000", "20000"})
+    int historyRows;
+
+    ConfigurableApplicationContext context;
+    BankHistoryRepository bankHistoryRepository;
+    TransactionTemplate transactionTemplate;
+    BankAccount bankAccount;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start("history" + historyRows);
+        bankHistoryRepository = context.getBean(BankHistoryRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        User user = context.getBean(UserRepository.class).findUserByEmail("vova@gmail.com").orElseThrow();
+        bankAccount = context.getBean(BankAccountRepository.class).findById(1L).orElseThrow();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BankHistory> histories = new ArrayList<>(historyRows);
+        for (int i = 0; i < historyRows; i++) {
+            histories.add(BankHistory.builder()
+                    .operation(i % 3 == 0 ? "replenish" : "withdraw")
+                    .reason("reason " + i)
+                    .timestamp(now.minusMinutes((long) i * 365 * 24 * 60 / historyRows))
+                    .amount(i % 100)
+                    .user(user)
+                    .bankAccount(bankAccount)
+                    .build());
+        }
+        bankHistoryRepository.saveAll(histories);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BankHistory> lastMonthEntities() {
+        return transactionTemplate.execute(status ->
+                bankHistoryRepository.findAllHistoriesByBankAccountForLastMonth(bankAccount));
+    }
+
+    @Benchmark
+    public List<BankHistoryView> lastMonthViews() {
+        return bankHistoryRepository.findHistoryViewsByAccountIdForLastMonth(bankAccount.getId());
+    }
+}
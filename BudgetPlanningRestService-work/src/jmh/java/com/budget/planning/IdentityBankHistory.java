@@ -0,0 +1,36 @@
+package com.budget.planning;
+
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.User;
+
+import jakarta.persistence.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//the history mapping as it was before the pooled allocator, only on the benchmark classpath
+@Entity
+@Table(name = "bankhistory_identity")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdentityBankHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private LocalDateTime timestamp;
+    private String operation;
+    private String reason;
+    private Integer amount;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id")
+    private BankAccount bankAccount;
+}
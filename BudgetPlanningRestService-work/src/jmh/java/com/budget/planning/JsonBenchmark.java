@@ -0,0 +1,51 @@
+package com.budget.planning;
+
+import com.budget.planning.dto.response.BankHistoryDTO;
+import com.budget.planning.dto.response.UserWithLimitDTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"100", "1000"})
+    int size;
+
+    ObjectMapper mapper;
+    List<BankHistoryDTO> histories;
+
+    @Setup
+    public void setUp() {
+        // configured like the one spring boot builds from application.properties
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        UserWithLimitDTO user = UserWithLimitDTO.builder().name("vova").email("vova@gmail.com").usage_limit(100)
+                .build();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 19, 9, 1, 6);
+
+        histories = IntStream.range(0, size)
+                .mapToObj(i -> BankHistoryDTO.builder().operation(i % 3 == 0 ? "replenish" : "withdraw")
+                        .reason("reason " + i).timestamp(timestamp.plusMinutes(i)).amount(i).user(user).build())
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(histories);
+    }
+}
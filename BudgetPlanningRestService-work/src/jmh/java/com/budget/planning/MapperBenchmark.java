@@ -0,0 +1,59 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.Mapper;
+import com.budget.planning.configuration.security.Role;
+import com.budget.planning.dto.response.BankHistoryDTO;
+import com.budget.planning.model.BankHistory;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.projection.BankHistoryView;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"100", "1000"})
+    int size;
+
+    List<BankHistory> histories;
+    List<BankHistoryView> views;
+
+    @Setup
+    public void setUp() {
+        User user = User.builder().user_id(1L).name("vova").email("vova@gmail.com").role(Role.CHILD)
+                .usage_limit(100).daily_limit(500).build();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 19, 9, 1, 6);
+
+        histories = IntStream.range(0, size)
+                .mapToObj(i -> BankHistory.builder().id((long) i).operation(i % 3 == 0 ? "replenish" : "withdraw")
+                        .reason("reason " + i).timestamp(timestamp.plusMinutes(i)).amount(i).user(user).build())
+                .toList();
+        views = IntStream.range(0, size)
+                .mapToObj(i -> new BankHistoryView((long) i, timestamp.plusMinutes(i),
+                        i % 3 == 0 ? "replenish" : "withdraw", "reason " + i, i, "vova", "vova@gmail.com", 100))
+                .toList();
+    }
+
+    @Benchmark
+    public List<BankHistoryDTO> mapEntities() {
+        return histories.stream()
+                .map(Mapper::mapToBankHistoryDTO)
+                .toList();
+    }
+
+    @Benchmark
+    public List<BankHistoryDTO> mapViews() {
+        return views.stream()
+                .map(Mapper::mapToBankHistoryDTO)
+                .toList();
+    }
+}
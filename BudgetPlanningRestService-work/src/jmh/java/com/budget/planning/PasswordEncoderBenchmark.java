@@ -0,0 +1,37 @@
+package com.budget.planning;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+//every basic auth request pays for one matches() call at the configured cost
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+    @Param({"4", "8", "10", "12"})
+    int strength;
+
+    BCryptPasswordEncoder passwordEncoder;
+    String hash;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(strength);
+        hash = passwordEncoder.encode("1234");
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("1234");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("1234", hash);
+    }
+}
@@ -0,0 +1,55 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.security.UserAdapter;
+import com.budget.planning.dto.request.AccountRegistrationRequest;
+import com.budget.planning.dto.request.AccountUpdateRequest;
+import com.budget.planning.dto.response.AccountUpdateDTO;
+import com.budget.planning.model.User;
+import com.budget.planning.service.BudgetPlanningService;
+import com.budget.planning.service.UserDetailsServiceImp;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+//a withdrawal through the service with its lane, limits, summary and history journal, on an embedded database
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WithdrawBenchmark {
+    ConfigurableApplicationContext context;
+    BudgetPlanningService budgetPlanningService;
+    User user;
+    AccountUpdateRequest withdrawal = AccountUpdateRequest.builder().amount(1).reason("benchmark").build();
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start("withdraw");
+        budgetPlanningService = context.getBean(BudgetPlanningService.class);
+        UserDetailsServiceImp userDetailsService = context.getBean(UserDetailsServiceImp.class);
+
+        budgetPlanningService.registerAccount(AccountRegistrationRequest.builder().balance(Integer.MAX_VALUE).build(),
+                ((UserAdapter) userDetailsService.loadUserByUsername("vova@gmail.com")).getUser());
+        user = ((UserAdapter) userDetailsService.loadUserByUsername("vova@gmail.com")).getUser();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AccountUpdateDTO withdraw() {
+        return budgetPlanningService.withdrawAccount(withdrawal, user);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public AccountUpdateDTO withdrawConcurrently() {
+        return budgetPlanningService.withdrawAccount(withdrawal, user);
+    }
+}
@@ -0,0 +1,24 @@
+package com.budget.planning.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+//the streaming exports are the only async requests, the 30s container default would cut large accounts off
+//partway; ordered after spring boot's configurer, so this wins over spring.mvc.async.request-timeout
+@Configuration
+public class ExportConfig implements WebMvcConfigurer {
+    private final Duration timeout;
+
+    public ExportConfig(@Value("${budget.export.timeout:1h}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(timeout.toMillis());
+    }
+}
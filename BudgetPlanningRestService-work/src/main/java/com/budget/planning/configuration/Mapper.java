@@ -4,6 +4,7 @@ import com.budget.planning.dto.response.*;
 import com.budget.planning.model.BankAccount;
 import com.budget.planning.model.BankHistory;
 import com.budget.planning.model.User;
+import com.budget.planning.repository.projection.BankHistoryView;
 
 public class Mapper {
     public static AccountUpdateDTO mapToAccountRegistration(BankAccount bankAccount) {
@@ -18,6 +19,9 @@ public class Mapper {
                 .name(user.getName())
                 .email(user.getEmail())
                 .usage_limit(user.getUsage_limit())
+                .daily_limit(user.getDaily_limit())
+                .weekly_limit(user.getWeekly_limit())
+                .monthly_limit(user.getMonthly_limit())
                 .build();
     }
 
@@ -31,6 +35,20 @@ public class Mapper {
                 .build();
     }
 
+    public static BankHistoryDTO mapToBankHistoryDTO(BankHistoryView bankHistory) {
+        return BankHistoryDTO.builder()
+                .operation(bankHistory.getOperation())
+                .reason(bankHistory.getReason())
+                .timestamp(bankHistory.getTimestamp())
+                .amount(bankHistory.getAmount())
+                .user(UserWithLimitDTO.builder()
+                        .name(bankHistory.getName())
+                        .email(bankHistory.getEmail())
+                        .usage_limit(bankHistory.getUsage_limit())
+                        .build())
+                .build();
+    }
+
     public static BankAccountDTO mapToBankAccountDTO(BankAccount bankAccount) {
         return BankAccountDTO.builder()
                 .id(bankAccount.getId())
@@ -2,13 +2,21 @@ package com.budget.planning.configuration;
 
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
+import io.swagger.v3.oas.annotations.security.SecuritySchemes;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@SecurityScheme(
-        type = SecuritySchemeType.HTTP,
-        name = "basicAuth",
-        scheme = "basic"
-)
+@SecuritySchemes({
+        @SecurityScheme(
+                type = SecuritySchemeType.HTTP,
+                name = "basicAuth",
+                scheme = "basic"
+        ),
+        @SecurityScheme(
+                type = SecuritySchemeType.HTTP,
+                name = "bearerAuth",
+                scheme = "bearer"
+        )
+})
 public class SwaggerConfig {
 }
@@ -0,0 +1,32 @@
+package com.budget.planning.configuration.cache;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+@Configuration
+public class SecondLevelCacheConfig {
+    //the default cache manager is shared by the whole jvm, so two applications with different databases
+    //(tests, embedded benchmark runs) would read each other's entities, the regions are still configured by application.conf
+    @Bean
+    public CacheManager secondLevelCacheManager(
+            @Value("${spring.jpa.properties.hibernate.javax.cache.provider}") String provider) {
+        return Caching.getCachingProvider(provider)
+                .getCacheManager(URI.create("budget:" + ObjectUtils.getIdentityHexString(this)),
+                        getClass().getClassLoader());
+    }
+
+    //hibernate closes the cache manager together with the session factory
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
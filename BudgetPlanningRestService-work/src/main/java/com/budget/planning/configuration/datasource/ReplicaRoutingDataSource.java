@@ -0,0 +1,57 @@
+package com.budget.planning.configuration.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Set;
+
+//read only transactions go to the replica, unless they are part of a request that writes or the user has just
+//written something the replica may still miss; must be behind a LazyConnectionDataSourceProxy, the transaction
+//is marked read only after it asks for a connection
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final Set<String> READ_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(),
+            HttpMethod.OPTIONS.name());
+
+    private final ReplicationLagGuard replicationLagGuard;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicationLagGuard replicationLagGuard) {
+        this.replicationLagGuard = replicationLagGuard;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static boolean isRead(HttpServletRequest request) {
+        return READ_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+
+        // the checks before a write have to see what the write will see
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && !isRead(attributes.getRequest())) {
+            return Target.PRIMARY;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && replicationLagGuard.mustReadPrimary(authentication.getName())) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+}
@@ -0,0 +1,32 @@
+package com.budget.planning.configuration.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+
+//users who wrote within the last maxLag, the replica may not have their changes yet
+public class ReplicationLagGuard {
+    private final Cache<String, Boolean> writers;
+
+    public ReplicationLagGuard(Duration maxLag, long maxSize) {
+        this(maxLag, maxSize, Ticker.systemTicker());
+    }
+
+    public ReplicationLagGuard(Duration maxLag, long maxSize, Ticker ticker) {
+        this.writers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxLag)
+                .ticker(ticker)
+                .build();
+    }
+
+    public void wrote(String username) {
+        writers.put(username, Boolean.TRUE);
+    }
+
+    public boolean mustReadPrimary(String username) {
+        return writers.getIfPresent(username) != null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.budget.planning.configuration.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BudgetMetrics {
+    private final MeterRegistry registry;
+
+    public BudgetMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    //reason is balance, or the limit that was hit: usage, daily, weekly or monthly
+    public void withdrawalRejected(String reason) {
+        counter("budget.withdrawals.rejected", "reason", reason).increment();
+        if (!reason.equals("balance")) {
+            counter("budget.limits.violations", "limit", reason).increment();
+        }
+    }
+
+    //type is basic, token or login
+    public void authFailed(String type) {
+        counter("budget.auth.failures", "type", type).increment();
+    }
+
+    @EventListener
+    public void onAuthenticationFailure(AbstractAuthenticationFailureEvent event) {
+        authFailed("basic");
+    }
+
+    private Counter counter(String name, String tag, String value) {
+        return Counter.builder(name)
+                .tag(tag, value)
+                .register(registry);
+    }
+}
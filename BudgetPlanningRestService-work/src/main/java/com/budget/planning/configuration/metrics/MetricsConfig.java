@@ -0,0 +1,32 @@
+package com.budget.planning.configuration.metrics;
+
+import com.budget.planning.service.HistoryJournal;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    //needed for @Timed on beans other than controllers
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder historyJournalMetrics(HistoryJournal historyJournal) {
+        return registry -> {
+            Gauge.builder("budget.history.dropped", historyJournal, HistoryJournal::getDropped)
+                    .description("History entries the journal could not write")
+                    .register(registry);
+            Gauge.builder("budget.history.pending", historyJournal, HistoryJournal::getPending)
+                    .description("History entries waiting for the flusher")
+                    .register(registry);
+        };
+    }
+}
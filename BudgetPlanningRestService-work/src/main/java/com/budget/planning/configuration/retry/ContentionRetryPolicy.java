@@ -0,0 +1,94 @@
+package com.budget.planning.configuration.retry;
+
+import com.budget.planning.dto.response.ContentionDTO;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class ContentionRetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Cache<Long, AccountContention> contention = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public ContentionRetryPolicy(@Value("${budget.retry.max-attempts:4}") int maxAttempts,
+                                 @Value("${budget.retry.base-delay:10ms}") Duration baseDelay,
+                                 @Value("${budget.retry.max-delay:200ms}") Duration maxDelay) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+    }
+
+    public <T> T execute(Long accountId, Attempt<T> attempt) throws Throwable {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.run();
+            } catch (ConcurrencyFailureException e) {
+                AccountContention counters = accountId == null ? null : contention.get(accountId,
+                        x -> new AccountContention());
+                if (counters != null) {
+                    counters.conflicts.increment();
+                }
+                if (i >= maxAttempts) {
+                    if (counters != null) {
+                        counters.giveUps.increment();
+                    }
+                    throw e;
+                }
+                if (counters != null) {
+                    counters.retries.increment();
+                }
+                backOff(i, e);
+            }
+        }
+    }
+
+    public List<ContentionDTO> getHotAccounts(int limit) {
+        return contention.asMap().entrySet().stream()
+                .map(x -> ContentionDTO.builder()
+                        .account_id(x.getKey())
+                        .conflicts(x.getValue().conflicts.sum())
+                        .retries(x.getValue().retries.sum())
+                        .give_ups(x.getValue().giveUps.sum())
+                        .build())
+                .sorted(Comparator.comparing(ContentionDTO::getConflicts).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    //full jitter, a random pause between zero and the capped exponential delay
+    private void backOff(int attempt, ConcurrencyFailureException conflict) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T run() throws Throwable;
+    }
+
+    private static class AccountContention {
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder giveUps = new LongAdder();
+    }
+}
@@ -0,0 +1,13 @@
+package com.budget.planning.configuration.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+    //SpEL over the method arguments, the bank account id the conflicts are counted for
+    String account() default "";
+}
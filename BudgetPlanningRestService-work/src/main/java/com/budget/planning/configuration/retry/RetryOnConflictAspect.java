@@ -0,0 +1,47 @@
+package com.budget.planning.configuration.retry;
+
+import lombok.RequiredArgsConstructor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//ordered before the transaction interceptor, so every attempt runs in a new transaction
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class RetryOnConflictAspect {
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+    private static final DefaultParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final ContentionRetryPolicy contentionRetryPolicy;
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        return contentionRetryPolicy.execute(getAccountId(joinPoint, retryOnConflict), joinPoint::proceed);
+    }
+
+    private Long getAccountId(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) {
+        if (retryOnConflict.account().isEmpty()) {
+            return null;
+        }
+        var context = new MethodBasedEvaluationContext(joinPoint.getTarget(),
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), joinPoint.getArgs(), PARAMETER_NAMES);
+
+        return expressions.computeIfAbsent(retryOnConflict.account(), PARSER::parseExpression)
+                .getValue(context, Long.class);
+    }
+}
@@ -1,5 +1,9 @@
 package com.budget.planning.configuration.security;
 
+import com.budget.planning.configuration.metrics.BudgetMetrics;
+import com.budget.planning.service.UserDetailsServiceImp;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -7,10 +11,16 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
 
 @Configuration
@@ -20,31 +30,50 @@ public class SecurityConfig {
     String[] allRoles = Arrays.stream(Role.values()).map(Enum::name).toArray(String[]::new);
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService,
+                                                   UserDetailsServiceImp userDetailsService,
+                                                   BudgetMetrics budgetMetrics) throws Exception {
         http.authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.POST, "/user/register").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/user/limit")
+                        .requestMatchers(HttpMethod.POST, "/user/register", "/user/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/user/limit", "/user/spending-limits")
                                 .hasAnyAuthority(Role.PARENT.toString(), Role.ADMIN.toString())
                         .requestMatchers(HttpMethod.POST, "/user/account")
                                 .hasAuthority(Role.ADMIN.toString())
-                        .requestMatchers(HttpMethod.GET, "/account/all")
+                        .requestMatchers(HttpMethod.GET, "/account/all", "/account/all/export", "/account/contention",
+                                "/account/pinning")
                                 .hasAuthority(Role.ADMIN.toString())
                         .requestMatchers(HttpMethod.DELETE, "/account/delete")
                                 .hasAuthority(Role.ADMIN.toString())
-                        .requestMatchers(HttpMethod.GET, "/account/history")
+                        .requestMatchers(HttpMethod.GET, "/account/history", "/account/history/export",
+                                "/account/summary", "/account/balance")
                                 .hasAnyAuthority(Role.PARENT.toString(), Role.ADMIN.toString())
                         .requestMatchers(HttpMethod.POST, "/account/**").hasAnyAuthority(allRoles)
                         .requestMatchers("/swagger-ui/**").permitAll()
                         .requestMatchers("/v3/api-docs/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().denyAll()
                 )
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService, userDetailsService, budgetMetrics),
+                        BasicAuthenticationFilter.class)
                 .httpBasic(Customizer.withDefaults())
-                .formLogin(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .csrf(AbstractHttpConfigurer::disable);
 
         return http.build();
     }
 
+    @Bean
+    public TokenService tokenService(@Value("${budget.security.token.secret:}") String secret,
+                                     @Value("${budget.security.token.ttl:15m}") Duration ttl) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length == 0) { //tokens will not survive a restart and are not shared between instances
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        }
+
+        return new TokenService(key, ttl, Clock.systemUTC());
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -0,0 +1,73 @@
+package com.budget.planning.configuration.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+public class TokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+
+    public TokenService(byte[] secret, Duration ttl, Clock clock) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    //token looks like base64(email|expiresAt).base64(hmac)
+    public String issue(String username) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String payload = ENCODER.encodeToString((username + "|" + expiresAt).getBytes(StandardCharsets.UTF_8));
+
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    public Optional<String> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(dot + 1)))) {
+                return Optional.empty();
+            }
+            String claims = new String(DECODER.decode(payload), StandardCharsets.UTF_8);
+            int separator = claims.lastIndexOf('|');
+            if (clock.instant().getEpochSecond() >= Long.parseLong(claims.substring(separator + 1))) {
+                return Optional.empty();
+            }
+
+            return Optional.of(claims.substring(0, separator));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
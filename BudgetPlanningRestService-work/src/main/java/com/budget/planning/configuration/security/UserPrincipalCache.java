@@ -0,0 +1,88 @@
+package com.budget.planning.configuration.security;
+
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.User;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+@Component
+public class UserPrincipalCache implements MeterBinder {
+    private final Cache<String, User> cache;
+
+    public UserPrincipalCache(@Value("${budget.security.principal-cache.max-size:10000}") long maxSize,
+                              @Value("${budget.security.principal-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    //every caller gets its own copy, because services change the principal they are given
+    public Optional<User> get(String username, Function<String, Optional<User>> loader) {
+        User user = cache.get(username, x -> loader.apply(x)
+                .map(UserPrincipalCache::copy)
+                .orElse(null));
+
+        return Optional.ofNullable(user).map(UserPrincipalCache::copy);
+    }
+
+    //evicted again after commit, so a request racing the transaction can not put back the old row
+    public void evict(Collection<String> usernames) {
+        cache.invalidateAll(usernames);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(usernames);
+                }
+            });
+        }
+    }
+
+    public void evict(String username) {
+        evict(List.of(username));
+    }
+
+    //hit, miss and eviction counts end up on /actuator/prometheus as cache_*{cache="principal"}
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "principal");
+    }
+
+    //balance is left out on purpose, it is always read from the account itself
+    private static User copy(User user) {
+        return User.builder()
+                .user_id(user.getUser_id())
+                .name(user.getName())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .role(user.getRole())
+                .usage_limit(user.getUsage_limit())
+                .daily_limit(user.getDaily_limit())
+                .weekly_limit(user.getWeekly_limit())
+                .monthly_limit(user.getMonthly_limit())
+                .bankAccount(Optional.ofNullable(user.getBankAccount())
+                        .map(x -> BankAccount.builder().id(x.getId()).build())
+                        .orElse(null))
+                .version(user.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.budget.planning.configuration.threads;
+
+import com.budget.planning.dto.response.PinningDTO;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//a virtual thread that blocks inside synchronized code keeps its carrier thread, these are counted per frame
+@Component
+public class PinningMonitor {
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    private final boolean enabled;
+    private final Duration threshold;
+    private final Cache<String, Pinning> pinnings = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .build();
+    private RecordingStream stream;
+
+    public PinningMonitor(Environment environment,
+                          @Value("${budget.threads.pinning.threshold:20ms}") Duration threshold) {
+        this.enabled = Threading.VIRTUAL.isActive(environment);
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        stream = new RecordingStream();
+        stream.enable(PINNED).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED, this::record);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public void record(String frame, Duration duration) {
+        Pinning pinning = pinnings.get(frame, x -> new Pinning());
+        pinning.events.increment();
+        pinning.totalMillis.add(duration.toMillis());
+        pinning.maxMillis.accumulate(duration.toMillis());
+    }
+
+    public List<PinningDTO> getPinnedFrames(int limit) {
+        return pinnings.asMap().entrySet().stream()
+                .map(x -> PinningDTO.builder()
+                        .frame(x.getKey())
+                        .events(x.getValue().events.sum())
+                        .total_millis(x.getValue().totalMillis.sum())
+                        .max_millis(x.getValue().maxMillis.get())
+                        .build())
+                .sorted(Comparator.comparing(PinningDTO::getTotal_millis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private void record(RecordedEvent event) {
+        record(frame(event), event.getDuration());
+    }
+
+    // the first frame outside the jdk is the driver, pool or orm code that holds the monitor
+    private String frame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+
+        return event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(x -> x.getMethod().getType().getName() + "." + x.getMethod().getName() + ":" + x.getLineNumber())
+                .filter(x -> !x.startsWith("java.") && !x.startsWith("jdk.") && !x.startsWith("sun."))
+                .findFirst()
+                .orElse("unknown");
+    }
+
+    private static final class Pinning {
+        private final LongAdder events = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0);
+    }
+}
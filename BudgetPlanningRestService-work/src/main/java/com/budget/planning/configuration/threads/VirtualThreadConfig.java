@@ -0,0 +1,48 @@
+package com.budget.planning.configuration.threads;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+//with spring.threads.virtual.enabled tomcat runs every request on its own virtual thread,
+//so nothing but the bulkhead limits how many of them wait for a connection
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    @Bean
+    public static BeanPostProcessor connectionBulkheadPostProcessor(
+            @Value("${budget.threads.bulkhead.acquire-timeout:5s}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    return new ConnectionBulkhead(dataSource, dataSource.getMaximumPoolSize(), acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConnectionBulkhead bulkhead) {
+                Gauge.builder("budget.bulkhead.available", bulkhead, ConnectionBulkhead::getAvailablePermits)
+                        .register(registry);
+                Gauge.builder("budget.bulkhead.waiting", bulkhead, ConnectionBulkhead::getQueueLength)
+                        .register(registry);
+            }
+        };
+    }
+}
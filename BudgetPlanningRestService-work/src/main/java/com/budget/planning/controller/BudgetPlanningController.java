@@ -1,9 +1,13 @@
 package com.budget.planning.controller;
 
+import com.budget.planning.configuration.retry.ContentionRetryPolicy;
 import com.budget.planning.configuration.security.UserAdapter;
+import com.budget.planning.configuration.threads.PinningMonitor;
 import com.budget.planning.dto.request.*;
 import com.budget.planning.dto.response.*;
+import com.budget.planning.model.BankAccount;
 import com.budget.planning.service.BudgetPlanningService;
+import com.budget.planning.service.ExportService;
 import com.budget.planning.service.UserDetailsServiceImp;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,10 +22,12 @@ import jakarta.validation.Valid;
 
 import lombok.AllArgsConstructor;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -30,6 +36,9 @@ import java.util.List;
 public class BudgetPlanningController {
     private final BudgetPlanningService budgetPlanningService;
     private final UserDetailsServiceImp userDetailsService;
+    private final ExportService exportService;
+    private final ContentionRetryPolicy contentionRetryPolicy;
+    private final PinningMonitor pinningMonitor;
 
     @Operation(summary = "Register new user")
     @ApiResponse(responseCode = "200", description = "User registered", content = @Content)
@@ -40,8 +49,22 @@ public class BudgetPlanningController {
         return userDetailsService.register(userRegistrationRequest);
     }
 
+    @Operation(summary = "Log in and get a short-lived bearer token for the other endpoints")
+    @ApiResponse(responseCode = "200", description = "Issued token",
+            content = @Content(
+                    schema = @Schema(implementation = TokenDTO.class),
+                    examples = @ExampleObject(value = "{\"access_token\":\"dm92YUBnbWFpbC5jb218MTcxNjEwNjQ2Ng" +
+                            ".5cVgI0mZbYc1v6cOq0xwUvZyq6b0hfz3ZbmYwVq1y9U\",\"token_type\":\"Bearer\"," +
+                            "\"expires_in\":900}")))
+    @ApiResponse(responseCode = "401", description = "Wrong email or password", content = @Content)
+
+    @PostMapping("/user/login")
+    public TokenDTO login(@Valid @RequestBody LoginRequest loginRequest) {
+        return userDetailsService.login(loginRequest);
+    }
+
     @Operation(summary = "Register new bank account, authorization required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "Created bank account",
             content = @Content(
                 schema = @Schema(implementation = AccountUpdateDTO.class),
@@ -55,7 +78,7 @@ public class BudgetPlanningController {
     }
 
     @Operation(summary = "Replenish a bank account, authorization required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "Updated bank account",
             content = @Content(
                     schema = @Schema(implementation = AccountUpdateDTO.class),
@@ -70,7 +93,7 @@ public class BudgetPlanningController {
     }
 
     @Operation(summary = "Withdraw money from bank account, authorization required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "Updated bank account",
             content = @Content(
                     schema = @Schema(implementation = AccountUpdateDTO.class),
@@ -85,8 +108,26 @@ public class BudgetPlanningController {
         return budgetPlanningService.withdrawAccount(accountRequest, user.getUser());
     }
 
+    @Operation(summary = "Apply a batch of replenish and withdraw operations in one transaction, authorization required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Batch result with the status of every operation",
+            content = @Content(
+                    schema = @Schema(implementation = BatchDTO.class),
+                    examples = @ExampleObject(value = "{\"account_id\":2,\"balance\":9900,\"applied\":1," +
+                            "\"results\":[{\"index\":0,\"type\":\"withdraw\",\"amount\":100," +
+                            "\"status\":\"applied\"}]}")))
+    @ApiResponse(responseCode = "400", description = "You do not have a bank account, or " +
+            "the batch is not valid", content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+
+    @PostMapping("/account/batch")
+    public BatchDTO applyBatch(@Valid @RequestBody BatchRequest batchRequest,
+                               @AuthenticationPrincipal UserAdapter user) {
+        return budgetPlanningService.applyBatch(batchRequest, user.getUser());
+    }
+
     @Operation(summary = "Set new usage limit for a child, Parent or Admin role required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "Updated user",
             content = @Content(
                     schema = @Schema(implementation = UserWithLimitDTO.class),
@@ -102,8 +143,26 @@ public class BudgetPlanningController {
         return budgetPlanningService.updateLimit(limitRequest, user.getUser());
     }
 
+    @Operation(summary = "Set daily, weekly and monthly spending limits for a child, Parent or Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Updated user",
+            content = @Content(
+                    schema = @Schema(implementation = UserWithLimitDTO.class),
+                    examples = @ExampleObject(value = "{\"name\":\"vova\",\"email\":\"vova@gmail.com\"," +
+                            "\"usage_limit\":10,\"daily_limit\":100,\"monthly_limit\":1500}")))
+    @ApiResponse(responseCode = "400", description = "No user with such username, or " +
+            "you can't change limit of this user", content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @PostMapping("/user/spending-limits")
+    public UserWithLimitDTO updateSpendingLimits(@Valid @RequestBody SpendingLimitRequest limitRequest,
+                                                 @AuthenticationPrincipal UserAdapter user) {
+        return budgetPlanningService.updateSpendingLimits(limitRequest, user.getUser());
+    }
+
     @Operation(summary = "Get your bank account history for the last month, Parent or Admin role required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "List of account transactions",
             content = @Content(
                     schema = @Schema(implementation = BankHistoryDTO.class),
@@ -120,8 +179,103 @@ public class BudgetPlanningController {
         return budgetPlanningService.getAccountHistory(user.getUser());
     }
 
+    @Operation(summary = "Get your whole bank account history page by page, newest first, " +
+            "Parent or Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Page of account transactions",
+            content = @Content(
+                    schema = @Schema(implementation = PageDTO.class),
+                    examples = @ExampleObject(value = "{\"items\":[{\"operation\":\"replenish\"," +
+                            "\"reason\":\"payday\",\"timestamp\":\"2024-05-19T09:01:06\",\"amount\":1100," +
+                            "\"user\":{\"name\":\"vova\",\"email\":\"vova@gmail.com\",\"usage_limit\":100}}]," +
+                            "\"next_cursor\":\"MjAyNC0wNS0xOVQwOTowMTowNnwxMg\"}")))
+    @ApiResponse(responseCode = "400", description = "You do not have a bank account, wrong page size " +
+            "or wrong cursor", content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping(value = "/account/history", params = "limit") //link looks like /account/history?limit=50&cursor=...
+    public PageDTO<BankHistoryDTO> getAccountHistoryPage(@Parameter(description = "Page size, up to 500")
+                                                         @RequestParam int limit,
+                                                         @Parameter(description = "next_cursor of the previous page")
+                                                         @RequestParam(required = false) String cursor,
+                                                         @AuthenticationPrincipal UserAdapter user) {
+        return budgetPlanningService.getAccountHistoryPage(user.getUser(), limit, cursor);
+    }
+
+    @Operation(summary = "Get replenished and withdrawn totals of your bank account for a month, per member, " +
+            "Parent or Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Monthly summary of the account",
+            content = @Content(
+                    schema = @Schema(implementation = AccountSummaryDTO.class),
+                    examples = @ExampleObject(value = "{\"account_id\":1,\"month\":\"2024-05\"," +
+                            "\"replenished\":1100,\"withdrawn\":300,\"users\":[{\"name\":\"vova\"," +
+                            "\"email\":\"vova@gmail.com\",\"replenished\":1100,\"withdrawn\":300," +
+                            "\"operations\":4}]}")))
+    @ApiResponse(responseCode = "400", description = "You do not have a bank account, or wrong month",
+            content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping("/account/summary") //link looks like /account/summary?month=2024-05
+    public AccountSummaryDTO getAccountSummary(@Parameter(description = "yyyy-MM, the current month by default")
+                                               @RequestParam(required = false) String month,
+                                               @AuthenticationPrincipal UserAdapter user) {
+        return budgetPlanningService.getAccountSummary(user.getUser(), month);
+    }
+
+    @Operation(summary = "Get the balance your bank account had at a moment in the past, " +
+            "Parent or Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Balance of the account at that moment",
+            content = @Content(
+                    schema = @Schema(implementation = BalanceDTO.class),
+                    examples = @ExampleObject(value = "{\"account_id\":1,\"as_of\":\"2024-05-19T23:59:59\"," +
+                            "\"balance\":1100}")))
+    @ApiResponse(responseCode = "400", description = "You do not have a bank account, or wrong date",
+            content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping("/account/balance") //link looks like /account/balance?asOf=2024-05-19
+    public BalanceDTO getBalanceAt(@Parameter(description = "yyyy-MM-dd for the end of that day, " +
+                                           "or yyyy-MM-ddTHH:mm:ss, now by default")
+                                   @RequestParam(required = false) String asOf,
+                                   @AuthenticationPrincipal UserAdapter user) {
+        return budgetPlanningService.getBalanceAt(user.getUser(), asOf);
+    }
+
+    @Operation(summary = "Export your whole bank account history as NDJSON or CSV, Parent or Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Stream of account transactions, oldest first",
+            content = @Content(
+                    mediaType = "application/x-ndjson",
+                    examples = @ExampleObject(value = "{\"operation\":\"replenish\",\"reason\":\"payday\"," +
+                            "\"timestamp\":\"2024-05-19T09:01:06\",\"amount\":1100,\"user\":" +
+                            "{\"name\":\"vova\",\"email\":\"vova@gmail.com\",\"usage_limit\":100}}")))
+    @ApiResponse(responseCode = "400", description = "You do not have a bank account, or wrong format",
+            content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping("/account/history/export") //link looks like /account/history/export?format=csv
+    public ResponseEntity<StreamingResponseBody> exportAccountHistory(@Parameter(description = "ndjson or csv")
+                                                                      @RequestParam(defaultValue = "ndjson")
+                                                                      String format,
+                                                                      @AuthenticationPrincipal UserAdapter user) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        BankAccount bankAccount = exportService.getExportedAccount(user.getUser());
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=history-" + bankAccount.getId() + "." + exportFormat.getExtension())
+                .body(out -> exportService.exportAccountHistory(bankAccount, exportFormat, out));
+    }
+
     @Operation(summary = "Update the user's bank account, Admin role required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "Updated user",
             content = @Content(
                     schema = @Schema(implementation = UserDTO.class),
@@ -137,7 +291,7 @@ public class BudgetPlanningController {
     }
 
     @Operation(summary = "Get all bank accounts, Admin role required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "List of all accounts",
             content = @Content(
                     schema = @Schema(implementation = BankAccountDTO.class),
@@ -150,8 +304,86 @@ public class BudgetPlanningController {
         return budgetPlanningService.getAllAccounts();
     }
 
+    @Operation(summary = "Get bank accounts page by page, ordered by id, Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Page of accounts",
+            content = @Content(
+                    schema = @Schema(implementation = PageDTO.class),
+                    examples = @ExampleObject(value = "{\"items\":[{\"id\":1,\"balance\":1000}," +
+                            "{\"id\":2,\"balance\":22000}],\"next_cursor\":\"Mg\"}")))
+    @ApiResponse(responseCode = "400", description = "Wrong page size or wrong cursor", content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping(value = "/account/all", params = "limit") //link looks like /account/all?limit=50&minBalance=100
+    public PageDTO<BankAccountDTO> getAccountsPage(@Parameter(description = "Page size, up to 500")
+                                                   @RequestParam int limit,
+                                                   @Parameter(description = "next_cursor of the previous page")
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer minBalance,
+                                                   @RequestParam(required = false) Integer maxBalance) {
+        return budgetPlanningService.getAccountsPage(limit, cursor, minBalance, maxBalance);
+    }
+
+    @Operation(summary = "Export all bank accounts as NDJSON or CSV, Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Stream of accounts, ordered by id",
+            content = @Content(
+                    mediaType = "application/x-ndjson",
+                    examples = @ExampleObject(value = "{\"id\":1,\"balance\":1000}")))
+    @ApiResponse(responseCode = "400", description = "Wrong format", content = @Content)
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping("/account/all/export") //link looks like /account/all/export?format=csv&maxBalance=0
+    public ResponseEntity<StreamingResponseBody> exportAllAccounts(@Parameter(description = "ndjson or csv")
+                                                                   @RequestParam(defaultValue = "ndjson")
+                                                                   String format,
+                                                                   @RequestParam(required = false) Integer minBalance,
+                                                                   @RequestParam(required = false) Integer maxBalance) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=accounts." + exportFormat.getExtension())
+                .body(out -> exportService.exportAllAccounts(minBalance, maxBalance, exportFormat, out));
+    }
+
+    @Operation(summary = "Get accounts with the most concurrent write conflicts, Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Hot accounts, most conflicts first",
+            content = @Content(
+                    schema = @Schema(implementation = ContentionDTO.class),
+                    examples = @ExampleObject(value = "[{\"account_id\":1,\"conflicts\":12,\"retries\":11," +
+                            "\"give_ups\":1}]")))
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping("/account/contention") //link looks like /account/contention?limit=10
+    public List<ContentionDTO> getHotAccounts(@RequestParam(defaultValue = "20") int limit) {
+        return contentionRetryPolicy.getHotAccounts(limit);
+    }
+
+    @Operation(summary = "Get code that pinned virtual threads to their carrier threads the longest, " +
+            "Admin role required",
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
+    @ApiResponse(responseCode = "200", description = "Pinning frames, longest total pinning first, " +
+            "empty unless spring.threads.virtual.enabled is set on Java 21",
+            content = @Content(
+                    schema = @Schema(implementation = PinningDTO.class),
+                    examples = @ExampleObject(value = "[{\"frame\":\"com.mysql.cj.NativeSession.execSQL:1000\"," +
+                            "\"events\":3,\"total_millis\":95,\"max_millis\":41}]")))
+    @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Wrong role", content = @Content)
+
+    @GetMapping("/account/pinning") //link looks like /account/pinning?limit=10
+    public List<PinningDTO> getPinnedFrames(@RequestParam(defaultValue = "20") int limit) {
+        return pinningMonitor.getPinnedFrames(limit);
+    }
+
     @Operation(summary = "Delete bank account and all its history, Admin role required",
-            security = @SecurityRequirement(name = "basicAuth"))
+            security = {@SecurityRequirement(name = "basicAuth"), @SecurityRequirement(name = "bearerAuth")})
     @ApiResponse(responseCode = "200", description = "The account was deleted", content = @Content)
     @ApiResponse(responseCode = "400", description = "Wrong id", content = @Content)
     @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content)
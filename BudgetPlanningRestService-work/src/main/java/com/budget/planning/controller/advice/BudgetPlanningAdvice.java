@@ -3,8 +3,10 @@ package com.budget.planning.controller.advice;
 import com.budget.planning.exception.AccountUpdateException;
 import com.budget.planning.exception.BankHistoryException;
 import com.budget.planning.exception.LimitUpdateException;
+import com.budget.planning.exception.LoginException;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -40,4 +42,17 @@ public class BudgetPlanningAdvice {
     public Map<String, String> handleBankHistoryException(BankHistoryException exception) {
         return Map.of("error", exception.getMessage());
     }
+
+    @ExceptionHandler(LoginException.class)
+    @ResponseStatus(HttpStatus.UNAUTHORIZED)
+    public Map<String, String> handleLoginException(LoginException exception) {
+        return Map.of("error", exception.getMessage());
+    }
+
+    //no connection could be taken, the bulkhead is full or the database is not reachable
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleCannotCreateTransactionException(CannotCreateTransactionException exception) {
+        return Map.of("error", "The service is busy, try again later");
+    }
 }
@@ -0,0 +1,27 @@
+package com.budget.planning.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+public class BatchRequest {
+    @Schema(example = "all_or_nothing")
+    @NotNull(message = "Write down batch mode, all_or_nothing or best_effort!")
+    @Pattern(regexp = "(?i)all_or_nothing|best_effort",
+            message = "Write down batch mode, all_or_nothing or best_effort!")
+    private String mode;
+    @NotEmpty(message = "Write down operations of the batch!")
+    @Size(max = 500, message = "A batch can have at most 500 operations!")
+    private List<@Valid @NotNull(message = "Write down operations of the batch!") BatchOperationRequest> operations;
+}
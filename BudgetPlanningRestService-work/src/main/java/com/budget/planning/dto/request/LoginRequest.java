@@ -0,0 +1,19 @@
+package com.budget.planning.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import jakarta.validation.constraints.NotBlank;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LoginRequest {
+    @Schema(example = "vova@gmail.com")
+    @NotBlank(message = "Write down your email!")
+    private String email;
+    @Schema(example = "1234")
+    @NotBlank(message = "Write down your password!")
+    private String password;
+}
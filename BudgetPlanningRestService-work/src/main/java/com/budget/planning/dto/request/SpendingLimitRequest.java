@@ -0,0 +1,30 @@
+package com.budget.planning.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpendingLimitRequest {
+    @Schema(example = "vova@gmail.com")
+    @NotBlank(message = "Write down username!")
+    private String username;
+    @Schema(example = "100", description = "Leave empty for no daily limit")
+    @Min(value = 1, message = "Write down new daily limit!")
+    private Integer daily_limit;
+    @Schema(example = "500", description = "Leave empty for no weekly limit")
+    @Min(value = 1, message = "Write down new weekly limit!")
+    private Integer weekly_limit;
+    @Schema(example = "1500", description = "Leave empty for no monthly limit")
+    @Min(value = 1, message = "Write down new monthly limit!")
+    private Integer monthly_limit;
+}
@@ -0,0 +1,20 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class AccountSummaryDTO {
+    private Long account_id;
+    private String month;
+    private Long replenished;
+    private Long withdrawn;
+    private List<UserSummaryDTO> users;
+}
@@ -0,0 +1,18 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class BalanceDTO {
+    private Long account_id;
+    private LocalDateTime as_of;
+    private Integer balance;
+}
@@ -0,0 +1,19 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class BatchDTO {
+    private Long account_id;
+    private Integer balance;
+    private Integer applied;
+    private List<BatchItemDTO> results;
+}
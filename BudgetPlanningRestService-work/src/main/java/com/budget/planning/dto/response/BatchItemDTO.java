@@ -0,0 +1,18 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class BatchItemDTO {
+    private Integer index;
+    private String type;
+    private Integer amount;
+    private String status;
+    private String error;
+}
@@ -0,0 +1,17 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class ContentionDTO {
+    private Long account_id;
+    private Long conflicts;
+    private Long retries;
+    private Long give_ups;
+}
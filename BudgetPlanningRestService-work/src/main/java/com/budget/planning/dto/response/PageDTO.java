@@ -0,0 +1,17 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class PageDTO<T> {
+    private List<T> items;
+    private String next_cursor;
+}
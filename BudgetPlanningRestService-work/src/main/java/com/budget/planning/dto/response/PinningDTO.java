@@ -0,0 +1,17 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class PinningDTO {
+    private String frame;
+    private Long events;
+    private Long total_millis;
+    private Long max_millis;
+}
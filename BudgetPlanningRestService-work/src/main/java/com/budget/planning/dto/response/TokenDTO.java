@@ -0,0 +1,16 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class TokenDTO {
+    private String access_token;
+    private String token_type;
+    private Long expires_in;
+}
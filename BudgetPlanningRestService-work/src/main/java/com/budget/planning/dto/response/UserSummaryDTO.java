@@ -0,0 +1,18 @@
+package com.budget.planning.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class UserSummaryDTO {
+    private String name;
+    private String email;
+    private Long replenished;
+    private Long withdrawn;
+    private Integer operations;
+}
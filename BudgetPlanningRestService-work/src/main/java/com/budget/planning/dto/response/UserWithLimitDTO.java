@@ -1,5 +1,7 @@
 package com.budget.planning.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,4 +11,11 @@ public class UserWithLimitDTO {
     private String name;
     private String email;
     private Integer usage_limit;
+    //spending limits are left out when they are not set
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer daily_limit;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer weekly_limit;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer monthly_limit;
 }
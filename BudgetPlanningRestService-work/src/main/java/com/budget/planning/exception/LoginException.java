@@ -0,0 +1,7 @@
+package com.budget.planning.exception;
+
+public class LoginException extends RuntimeException {
+    public LoginException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,22 @@
+package com.budget.planning.exception;
+
+import lombok.Getter;
+
+//reason is balance, or the limit that was hit: usage, daily, weekly or monthly
+@Getter
+public class WithdrawalRejectedException extends AccountUpdateException {
+    private final String reason;
+
+    public WithdrawalRejectedException(String reason) {
+        super(message(reason));
+        this.reason = reason;
+    }
+
+    public static String message(String reason) {
+        return switch (reason) {
+            case "balance" -> "Balance can not become less than zero after operation";
+            case "usage" -> "Your usage limit does not allow you to perform this operation";
+            default -> "Your " + reason + " spending limit does not allow you to perform this operation";
+        };
+    }
+}
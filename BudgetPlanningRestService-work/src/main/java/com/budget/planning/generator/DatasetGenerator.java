@@ -0,0 +1,199 @@
+package com.budget.planning.generator;
+
+import com.budget.planning.configuration.security.Role;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class DatasetGenerator {
+    //ids of the last generated rows of every table
+    public record Ids(long account, long user, long history, long snapshot) {
+    }
+
+    private static final long DAY = 86400;
+    private static final long MAX_BALANCE = 100_000_000;
+    private static final int MAX_OPENING_BALANCE = 1_000_000;
+    private static final int PARENT_WITHDRAW_LIMIT = 1000;
+    private static final int CHILD_USAGE_LIMIT = 100;
+    static final int ID_ALLOCATION_SIZE = 50;
+    private static final String[] NAMES = {"vova", "anna", "ivan", "olga", "petro", "maria", "taras", "sofia"};
+    private static final String[] GIFTS = {"gift", "refund", "cashback", "pocket money"};
+    private static final String[] PURCHASES = {"groceries", "rent", "fuel", "cinema", "books", "pharmacy", "candy",
+            "bike"};
+
+    private final DatasetSettings settings;
+    private final long from;
+    private final long until;
+
+    public DatasetGenerator(DatasetSettings settings) {
+        this.settings = settings;
+        this.from = settings.getFrom().toEpochSecond(ZoneOffset.UTC);
+        this.until = settings.getUntil().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    //the ids continue after last, the same settings always produce the same rows
+    public Ids generate(DatasetWriter writer, Ids last) {
+        int[] ranks = ranks();
+        double norm = 0;
+        for (int rank = 1; rank <= settings.getFamilies(); rank++) {
+            norm += Math.pow(rank, -settings.getActivitySkew());
+        }
+
+        Ids next = last;
+        for (int family = 0; family < settings.getFamilies(); family++) {
+            next = family(writer, family, ranks[family], norm, next);
+        }
+
+        // pooled allocations handed out before the load stay below the generated ids and the new ones above them
+        allocateAfter(writer, "bankhistory", next.history());
+        allocateAfter(writer, "balance_snapshot", next.snapshot());
+        return next;
+    }
+
+    private void allocateAfter(DatasetWriter writer, String sequence, long lastId) {
+        long nextVal = lastId + ID_ALLOCATION_SIZE + 1;
+        writer.execute("INSERT INTO id_generator(sequence_name, next_val) VALUES ('" + sequence + "', " + nextVal +
+                ") ON DUPLICATE KEY UPDATE next_val = " + nextVal);
+    }
+
+    //activity rank of every family, rank 1 is the busiest account
+    private int[] ranks() {
+        SplittableRandom random = new SplittableRandom(settings.getSeed());
+        int[] ranks = new int[settings.getFamilies()];
+        for (int i = 0; i < ranks.length; i++) {
+            int j = random.nextInt(i + 1);
+            ranks[i] = ranks[j];
+            ranks[j] = i + 1;
+        }
+        return ranks;
+    }
+
+    //every family has its own random, so its rows do not depend on the families generated before it
+    private Ids family(DatasetWriter writer, int family, int rank, double norm, Ids last) {
+        SplittableRandom random = new SplittableRandom(settings.getSeed() + family * 0xBF58476D1CE4E5B9L);
+        double expected = settings.getHistoryRows() * Math.pow(rank, -settings.getActivitySkew()) / norm;
+        int rows = (int) expected + (random.nextDouble() < expected - (int) expected ? 1 : 0);
+        int parents = random.nextDouble() < settings.getSecondParentShare() ? 2 : 1;
+        int children = random.nextInt(settings.getMaxChildren() + 1);
+        long opened = from + random.nextLong(Math.max(1, (until - from) / 2));
+        int opening = (int) Math.min(MAX_OPENING_BALANCE, 100 / Math.pow(1 - random.nextDouble(), 2.0 / 3));
+
+        //the two lowest bits are replenish and payday
+        long[] events = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            boolean replenish = random.nextDouble() < settings.getReplenishShare();
+            long time = replenish && random.nextDouble() < settings.getPaydayShare() ? payday(random, opened) : -1;
+            boolean payday = time > 0;
+            if (!payday) {
+                time = daytime(random, opened);
+            }
+            events[i] = time << 2 | (payday ? 2 : 0) | (replenish ? 1 : 0);
+        }
+        Arrays.sort(events);
+
+        int[] amounts = new int[rows];
+        int[] users = new int[rows];
+        long balance = opening;
+        for (int i = 0; i < rows; i++) {
+            int amount;
+            if ((events[i] & 1) != 0) {
+                users[i] = random.nextInt(parents);
+                amount = (events[i] & 2) != 0 ? between(random, 500, 3000) : between(random, 10, 200);
+            } else {
+                boolean child = children > 0 && random.nextDouble() < settings.getChildWithdrawShare();
+                users[i] = child ? parents + random.nextInt(children) : random.nextInt(parents);
+                amount = -logUniform(random, child ? CHILD_USAGE_LIMIT : PARENT_WITHDRAW_LIMIT);
+            }
+            // the service never lets a balance reach zero
+            if (balance + amount <= 0 || balance + amount > MAX_BALANCE) {
+                amount = -amount;
+            }
+            amounts[i] = amount;
+            balance += amount;
+        }
+
+        long accountId = last.account() + 1;
+        writer.write(DatasetTable.BANKACCOUNT, accountId, (int) balance, 0L);
+        for (int i = 0; i < parents + children; i++) {
+            boolean child = i >= parents;
+            writer.write(DatasetTable.USER, last.user() + 1 + i, NAMES[random.nextInt(NAMES.length)],
+                    "user" + (last.user() + 1 + i) + "@family.test", settings.getPassword(),
+                    (child ? Role.CHILD : Role.PARENT).ordinal(), child ? CHILD_USAGE_LIMIT : Integer.MAX_VALUE,
+                    accountId, 0L);
+        }
+        writer.write(DatasetTable.BALANCE_SNAPSHOT, last.snapshot() + 1, accountId, time(opened), opening);
+
+        //the events are in time order, so a month is complete once the next one starts
+        Map<String, long[]> month = new LinkedHashMap<>();
+        LocalDate monthStart = null;
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime timestamp = time(events[i] >> 2);
+            String operation = amounts[i] > 0 ? "replenish" : "withdraw";
+            String reason = amounts[i] < 0 ? PURCHASES[random.nextInt(PURCHASES.length)]
+                    : (events[i] & 3) == 3 ? "payday" : GIFTS[random.nextInt(GIFTS.length)];
+            long userId = last.user() + 1 + users[i];
+            writer.write(DatasetTable.BANKHISTORY, last.history() + 1 + i, timestamp, operation, reason,
+                    Math.abs(amounts[i]), userId, accountId);
+
+            if (!timestamp.toLocalDate().withDayOfMonth(1).equals(monthStart)) {
+                summaries(writer, accountId, monthStart, month);
+                monthStart = timestamp.toLocalDate().withDayOfMonth(1);
+            }
+            long[] total = month.computeIfAbsent(userId + " " + operation, x -> new long[2]);
+            total[0] += Math.abs(amounts[i]);
+            total[1]++;
+        }
+        summaries(writer, accountId, monthStart, month);
+
+        return new Ids(accountId, last.user() + parents + children, last.history() + rows, last.snapshot() + 1);
+    }
+
+    private void summaries(DatasetWriter writer, long accountId, LocalDate monthStart, Map<String, long[]> month) {
+        month.forEach((key, total) -> {
+            String[] userAndOperation = key.split(" ");
+            writer.write(DatasetTable.SPENDING_SUMMARY, accountId, monthStart, Long.parseLong(userAndOperation[0]),
+                    userAndOperation[1], total[0], (int) total[1]);
+        });
+        month.clear();
+    }
+
+    //some time between 06:00 and 12:00 of a payday, -1 if the one picked is before the account was opened
+    private long payday(SplittableRandom random, long opened) {
+        YearMonth first = YearMonth.from(time(opened));
+        YearMonth yearMonth = first.plusMonths(random.nextLong(ChronoUnit.MONTHS.between(first,
+                YearMonth.from(time(until))) + 1));
+        int day = settings.getPaydays().get(random.nextInt(settings.getPaydays().size()));
+        long time = yearMonth.atDay(Math.min(day, yearMonth.lengthOfMonth())).toEpochDay() * DAY
+                + 6 * 3600 + random.nextLong(6 * 3600);
+
+        return time > opened && time <= until ? time : -1;
+    }
+
+    //any day after the account was opened, between 07:00 and 23:00
+    private long daytime(SplittableRandom random, long opened) {
+        long time = opened + 1 + random.nextLong(until - opened);
+        long daytime = time - Math.floorMod(time, DAY) + 7 * 3600 + random.nextLong(16 * 3600);
+
+        return daytime > opened && daytime <= until ? daytime : time;
+    }
+
+    private int between(SplittableRandom random, int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+
+    //mostly small amounts with a long tail up to max
+    private int logUniform(SplittableRandom random, int max) {
+        return (int) Math.min(max, Math.exp(random.nextDouble() * Math.log(max + 1)));
+    }
+
+    private LocalDateTime time(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
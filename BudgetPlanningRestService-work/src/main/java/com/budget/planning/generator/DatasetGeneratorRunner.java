@@ -0,0 +1,109 @@
+package com.budget.planning.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@Profile("generate")
+public class DatasetGeneratorRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DatasetGeneratorRunner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+    private final DatasetSettings settings;
+    private final String output;
+    private final Path directory;
+    private final int rowsPerInsert;
+    private final boolean exitWhenDone;
+
+    public DatasetGeneratorRunner(JdbcTemplate jdbcTemplate,
+                                  ConfigurableApplicationContext context,
+                                  @Value("${budget.generator.seed:42}") long seed,
+                                  @Value("${budget.generator.families:1000}") int families,
+                                  @Value("${budget.generator.history-rows:100000}") long historyRows,
+                                  @Value("${budget.generator.from:2022-01-01T00:00:00}") String from,
+                                  @Value("${budget.generator.until:2025-01-01T00:00:00}") String until,
+                                  @Value("${budget.generator.activity-skew:1.0}") double activitySkew,
+                                  @Value("${budget.generator.second-parent-share:0.6}") double secondParentShare,
+                                  @Value("${budget.generator.max-children:3}") int maxChildren,
+                                  @Value("${budget.generator.child-withdraw-share:0.3}") double childWithdrawShare,
+                                  @Value("${budget.generator.replenish-share:0.15}") double replenishShare,
+                                  @Value("${budget.generator.payday-share:0.7}") double paydayShare,
+                                  @Value("${budget.generator.paydays:1,15}") List<Integer> paydays,
+                                  @Value("${budget.generator.password}") String password,
+                                  @Value("${budget.generator.output:jdbc}") String output,
+                                  @Value("${budget.generator.directory:dataset}") String directory,
+                                  @Value("${budget.generator.rows-per-insert:1000}") int rowsPerInsert,
+                                  @Value("${budget.generator.exit-when-done:true}") boolean exitWhenDone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+        this.settings = DatasetSettings.builder()
+                .seed(seed)
+                .families(families)
+                .historyRows(historyRows)
+                .from(LocalDateTime.parse(from))
+                .until(LocalDateTime.parse(until))
+                .activitySkew(activitySkew)
+                .secondParentShare(secondParentShare)
+                .maxChildren(maxChildren)
+                .childWithdrawShare(childWithdrawShare)
+                .replenishShare(replenishShare)
+                .paydayShare(paydayShare)
+                .paydays(paydays)
+                .password(password)
+                .build();
+        this.output = output;
+        this.directory = Path.of(directory);
+        this.rowsPerInsert = rowsPerInsert;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        DatasetGenerator.Ids first = lastIds();
+        DatasetGenerator.Ids last;
+        try (DatasetWriter writer = output.equals("files")
+                ? new FileDatasetWriter(directory)
+                : new JdbcDatasetWriter(jdbcTemplate, rowsPerInsert)) {
+            last = new DatasetGenerator(settings).generate(writer, first);
+        }
+
+        log.info("Generated {} accounts, {} users and {} history rows in {} s{}", last.account() - first.account(),
+                last.user() - first.user(), last.history() - first.history(),
+                (System.nanoTime() - started) / 1_000_000_000,
+                output.equals("files") ? ", load them with " + directory.resolve("load.sql").toAbsolutePath() : "");
+        if (exitWhenDone) {
+            SpringApplication.exit(context);
+        }
+    }
+
+    //the generated rows go after the existing ones, pooled ids also after the blocks the id allocator gave out
+    private DatasetGenerator.Ids lastIds() {
+        return new DatasetGenerator.Ids(max("SELECT MAX(id) FROM bankaccount"), max("SELECT MAX(user_id) FROM user"),
+                lastPooled("bankhistory", "bankhistory"), lastPooled("balance_snapshot", "balance_snapshot"));
+    }
+
+    private long lastPooled(String table, String sequence) {
+        return Math.max(max("SELECT MAX(id) FROM " + table),
+                max("SELECT MAX(next_val) FROM id_generator WHERE sequence_name = '" + sequence + "'")
+                        + DatasetGenerator.ID_ALLOCATION_SIZE);
+    }
+
+    private long max(String sql) {
+        Long max = jdbcTemplate.queryForObject(sql, Long.class);
+        return max == null ? 0 : max;
+    }
+}
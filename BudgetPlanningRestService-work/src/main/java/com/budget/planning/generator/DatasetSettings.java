@@ -0,0 +1,31 @@
+package com.budget.planning.generator;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+@Getter
+public class DatasetSettings {
+    private long seed;
+    private int families;
+    private long historyRows;
+    private LocalDateTime from;
+    private LocalDateTime until;
+    //zipf exponent of the account activity, 0 spreads the history evenly
+    private double activitySkew;
+    private double secondParentShare;
+    private int maxChildren;
+    private double childWithdrawShare;
+    private double replenishShare;
+    //share of the replenishes that land on a payday
+    private double paydayShare;
+    private List<Integer> paydays;
+    private String password;
+}
@@ -0,0 +1,26 @@
+package com.budget.planning.generator;
+
+//in foreign key order, a table is always loaded after the tables before it
+public enum DatasetTable {
+    BANKACCOUNT("bankaccount", "id", "balance", "version"),
+    USER("user", "user_id", "name", "email", "password", "role", "usage_limit", "account_id", "version"),
+    BANKHISTORY("bankhistory", "id", "timestamp", "operation", "reason", "amount", "user_id", "account_id"),
+    BALANCE_SNAPSHOT("balance_snapshot", "id", "account_id", "taken_at", "balance"),
+    SPENDING_SUMMARY("spending_summary", "account_id", "month_start", "user_id", "operation", "total", "operations");
+
+    private final String name;
+    private final String[] columns;
+
+    DatasetTable(String name, String... columns) {
+        this.name = name;
+        this.columns = columns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+}
@@ -0,0 +1,11 @@
+package com.budget.planning.generator;
+
+public interface DatasetWriter extends AutoCloseable {
+    void write(DatasetTable table, Object... values);
+
+    //runs once every row is loaded
+    void execute(String statement);
+
+    @Override
+    void close();
+}
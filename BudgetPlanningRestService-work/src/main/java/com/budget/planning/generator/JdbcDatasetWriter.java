@@ -0,0 +1,62 @@
+package com.budget.planning.generator;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+//loads the rows through multi-row inserts, one round trip per rowsPerInsert rows
+public class JdbcDatasetWriter implements DatasetWriter {
+    private final JdbcTemplate jdbcTemplate;
+    private final int rowsPerInsert;
+    private final Map<DatasetTable, List<Object[]>> rows = new EnumMap<>(DatasetTable.class);
+    private final List<String> statements = new ArrayList<>();
+
+    public JdbcDatasetWriter(JdbcTemplate jdbcTemplate, int rowsPerInsert) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowsPerInsert = rowsPerInsert;
+    }
+
+    @Override
+    public void write(DatasetTable table, Object... values) {
+        List<Object[]> pending = rows.computeIfAbsent(table, x -> new ArrayList<>(rowsPerInsert));
+        pending.add(values);
+        if (pending.size() >= rowsPerInsert) {
+            // the rows this table refers to have to be in the database first
+            for (DatasetTable before : DatasetTable.values()) {
+                if (before.ordinal() <= table.ordinal()) {
+                    insert(before);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void execute(String statement) {
+        statements.add(statement);
+    }
+
+    @Override
+    public void close() {
+        for (DatasetTable table : DatasetTable.values()) {
+            insert(table);
+        }
+        statements.forEach(jdbcTemplate::execute);
+    }
+
+    private void insert(DatasetTable table) {
+        List<Object[]> pending = rows.get(table);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+
+        String row = "(" + String.join(", ", Collections.nCopies(table.getColumns().length, "?")) + ")";
+        String sql = "INSERT INTO " + table.getName() + "(" + String.join(", ", table.getColumns()) + ") VALUES " +
+                String.join(", ", Collections.nCopies(pending.size(), row));
+        jdbcTemplate.update(sql, pending.stream().flatMap(x -> List.of(x).stream()).toArray());
+        pending.clear();
+    }
+}
@@ -0,0 +1,27 @@
+package com.budget.planning.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//balance of an account at a checkpoint, the history before it never has to be replayed
+@Entity
+@Table(name = "balance_snapshot", indexes = @Index(name = "idx_balance_snapshot_account_taken_at",
+        columnList = "account_id, taken_at"))
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class BalanceSnapshot {
+    //pooled like the history ids, so the snapshots of a chunk go out as jdbc batches
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "balance_snapshot_id")
+    @TableGenerator(name = "balance_snapshot_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "balance_snapshot", allocationSize = 50)
+    private Long id;
+    private Long accountId;
+    private LocalDateTime takenAt;
+    private Integer balance;
+}
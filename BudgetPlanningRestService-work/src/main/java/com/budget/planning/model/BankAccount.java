@@ -3,8 +3,13 @@ package com.budget.planning.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
 @Entity
 @Table(name = "bankaccount")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 @Data
 @Builder
 @AllArgsConstructor
@@ -15,4 +20,9 @@ public class BankAccount {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private Integer balance;
+    @Version
+    @ColumnDefault("0")
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    private Long version = 0L;
 }
@@ -11,24 +11,34 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bankhistory")
+@Table(name = "bankhistory", indexes = @Index(name = "idx_bankhistory_account_timestamp",
+        columnList = "account_id, timestamp"))
+@NamedEntityGraph(name = BankHistory.WITH_USER, attributeNodes = @NamedAttributeNode("user"))
+@NamedEntityGraph(name = BankHistory.WITH_USER_AND_ACCOUNT,
+        attributeNodes = {@NamedAttributeNode("user"), @NamedAttributeNode("bankAccount")})
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class BankHistory {
+    public static final String WITH_USER = "BankHistory.user";
+    public static final String WITH_USER_AND_ACCOUNT = "BankHistory.userAndAccount";
+
+    //ids are taken from a pooled table allocator, so history inserts can go out as jdbc batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bankhistory_id")
+    @TableGenerator(name = "bankhistory_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "bankhistory", allocationSize = 50)
     private Long id;
     @Temporal(TemporalType.TIMESTAMP)
     private LocalDateTime timestamp;
     private String operation;
     private String reason;
     private Integer amount;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id")
     private BankAccount bankAccount;
 }
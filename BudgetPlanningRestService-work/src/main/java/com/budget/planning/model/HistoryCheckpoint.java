@@ -0,0 +1,20 @@
+package com.budget.planning.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+//last journal sequence number that has been written to bankhistory
+@Entity
+@Table(name = "history_checkpoint")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class HistoryCheckpoint {
+    @Id
+    private String name;
+    private Long seq;
+}
@@ -0,0 +1,27 @@
+package com.budget.planning.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+//what a user has spent in the current day, week and month, moved forward on every withdrawal
+@Entity
+@Table(name = "spending_counter")
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class SpendingCounter {
+    @Id
+    private Long userId;
+    private LocalDate dayStart;
+    private Integer daySpent;
+    private LocalDate weekStart;
+    private Integer weekSpent;
+    private LocalDate monthStart;
+    private Integer monthSpent;
+    @Version
+    private Long version;
+}
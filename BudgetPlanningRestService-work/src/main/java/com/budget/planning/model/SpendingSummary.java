@@ -0,0 +1,33 @@
+package com.budget.planning.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+//running totals of one account per month, user and operation, kept up to date by every replenish and withdraw
+@Entity
+@Table(name = "spending_summary")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class SpendingSummary {
+    @EmbeddedId
+    private Key id;
+    private Long total;
+    private Integer operations;
+
+    @Embeddable
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate monthStart;
+        private Long userId;
+        private String operation;
+    }
+}
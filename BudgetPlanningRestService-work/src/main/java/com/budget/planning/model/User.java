@@ -5,8 +5,16 @@ import jakarta.persistence.*;
 import jakarta.persistence.Table;
 import lombok.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 @Entity
 @Table(name = "user")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@NaturalIdCache(region = "user-email")
 @Data
 @Builder
 @AllArgsConstructor
@@ -17,6 +25,8 @@ public class User
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long user_id;
     private String name;
+    @NaturalId
+    @Column(nullable = false)
     private String email;
     private String password;
     private Role role;
@@ -24,4 +34,12 @@ public class User
     @JoinColumn(name = "account_id")
     private BankAccount bankAccount;
     private Integer usage_limit;
+    private Integer daily_limit;
+    private Integer weekly_limit;
+    private Integer monthly_limit;
+    @Version
+    @ColumnDefault("0")
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    private Long version = 0L;
 }
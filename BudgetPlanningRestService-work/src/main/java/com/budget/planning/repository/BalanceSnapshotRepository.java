@@ -0,0 +1,25 @@
+package com.budget.planning.repository;
+
+import com.budget.planning.model.BalanceSnapshot;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot,Long> {
+    Optional<BalanceSnapshot> findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(Long accountId,
+                                                                                          LocalDateTime asOf);
+
+    Optional<BalanceSnapshot> findFirstByAccountIdAndTakenAtGreaterThanOrderByTakenAt(Long accountId,
+                                                                                    LocalDateTime asOf);
+
+    @Modifying
+    @Query("DELETE FROM BalanceSnapshot s WHERE s.accountId = :accountId")
+    int deleteAllByAccountId(@Param("accountId") Long accountId);
+}
@@ -1,13 +1,65 @@
 package com.budget.planning.repository;
 
+import com.budget.planning.dto.response.BankAccountDTO;
 import com.budget.planning.model.BankAccount;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface BankAccountRepository extends JpaRepository<BankAccount,Long> {
+public interface BankAccountRepository extends JpaRepository<BankAccount,Long>, BankAccountRepositoryCustom {
+    String DTO = "SELECT new com.budget.planning.dto.response.BankAccountDTO(a.id, a.balance) FROM BankAccount a ";
+    String BALANCE_FILTER = "(:minBalance IS NULL OR a.balance >= :minBalance) " +
+            "AND (:maxBalance IS NULL OR a.balance <= :maxBalance) ";
+
+    //read under the row lock of the update that changed it, so it is the balance that update produced
+    @Query("SELECT a.balance FROM BankAccount a WHERE a.id = :id")
+    Integer findBalanceById(@Param("id") Long id);
+
+    //a scalar read, a managed account of the same transaction would hide the updates made after it was loaded
+    @Query(value = "SELECT balance FROM bankaccount WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Integer findLockedBalanceById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM BankAccount a WHERE a.id > :afterId ORDER BY a.id")
+    List<BankAccount> findLockedPage(@Param("afterId") Long afterId, Limit limit);
+
+    //accounts with history older than their first snapshot, the ones that existed before snapshots were taken
+    String WITHOUT_CHECKPOINTS = "(SELECT MIN(h.timestamp) FROM BankHistory h WHERE h.bankAccount.id = a.id) <= " +
+            "COALESCE((SELECT MIN(s.takenAt) FROM BalanceSnapshot s WHERE s.accountId = a.id), LOCAL DATETIME) ";
+
+    //a plain read, a locking scan would hold every scanned row until the end of the transaction
+    @Query("SELECT a.id FROM BankAccount a WHERE a.id > :afterId AND " + WITHOUT_CHECKPOINTS + "ORDER BY a.id")
+    List<Long> findIdsWithoutCheckpoints(@Param("afterId") Long afterId, Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM BankAccount a WHERE a.id = :id AND " + WITHOUT_CHECKPOINTS)
+    Optional<BankAccount> findLockedByIdWithoutCheckpoints(@Param("id") Long id);
+
+    @Query(DTO + "ORDER BY a.id")
+    List<BankAccountDTO> findAllAccountDTOs();
+
+    @Query(DTO + "WHERE a.id > :afterId AND " + BALANCE_FILTER + "ORDER BY a.id")
+    List<BankAccountDTO> findAccountPage(@Param("afterId") Long afterId,
+                                         @Param("minBalance") Integer minBalance,
+                                         @Param("maxBalance") Integer maxBalance, Limit limit);
 
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO + "WHERE " + BALANCE_FILTER + "ORDER BY a.id")
+    Stream<BankAccountDTO> streamAllAccountDTOs(@Param("minBalance") Integer minBalance,
+                                                @Param("maxBalance") Integer maxBalance);
 }
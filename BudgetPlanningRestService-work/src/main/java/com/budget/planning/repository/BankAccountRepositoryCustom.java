@@ -0,0 +1,7 @@
+package com.budget.planning.repository;
+
+public interface BankAccountRepositoryCustom {
+    int replenish(Long id, int amount);
+
+    int withdraw(Long id, int amount);
+}
@@ -0,0 +1,58 @@
+package com.budget.planning.repository;
+
+import com.budget.planning.model.BankAccount;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public class BankAccountRepositoryCustomImpl implements BankAccountRepositoryCustom {
+    //a space no entity is mapped to, so hibernate does not evict the whole account region after the update
+    private static final String BALANCE_SPACE = "bankaccount_balance";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int replenish(Long id, int amount) {
+        return update("UPDATE bankaccount SET balance = balance + :amount, version = version + 1 " +
+                "WHERE id = :id", id, amount);
+    }
+
+    //the balance check is part of the update, so concurrent withdrawals can not overdraw the account
+    @Override
+    public int withdraw(Long id, int amount) {
+        return update("UPDATE bankaccount SET balance = balance - :amount, version = version + 1 " +
+                "WHERE id = :id AND balance >= :amount", id, amount);
+    }
+
+    private int update(String sql, Long id, int amount) {
+        int updated = entityManager.createNativeQuery(sql)
+                .setParameter("id", id)
+                .setParameter("amount", amount)
+                .setHint(HINT_NATIVE_SPACES, BALANCE_SPACE)
+                .executeUpdate();
+        evict(id);
+
+        return updated;
+    }
+
+    // evicted again after commit, a reader may have cached the old row while the update was in flight
+    private void evict(Long id) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(BankAccount.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(BankAccount.class, id);
+                }
+            });
+        }
+    }
+}
@@ -2,26 +2,93 @@ package com.budget.planning.repository;
 
 import com.budget.planning.model.BankAccount;
 import com.budget.planning.model.BankHistory;
+import com.budget.planning.repository.projection.BalanceChangeView;
+import com.budget.planning.repository.projection.BankHistoryView;
 
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
 
 @Repository
 public interface BankHistoryRepository extends JpaRepository<BankHistory,Long> {
-    default List<BankHistory> findAllHistoriesByBankAccount(BankAccount bankAccount) {
-        return findAll().stream()
-                .filter(b -> bankAccount.equals(b.getBankAccount()))
-                .toList();
-    }
+    String VIEW = "SELECT new com.budget.planning.repository.projection.BankHistoryView(b.id, b.timestamp, " +
+            "b.operation, b.reason, b.amount, u.name, u.email, u.usage_limit) FROM BankHistory b JOIN b.user u ";
+
+    @Override
+    @EntityGraph(BankHistory.WITH_USER)
+    Optional<BankHistory> findById(Long id);
+
+    @EntityGraph(BankHistory.WITH_USER_AND_ACCOUNT)
+    @Query("SELECT b FROM BankHistory b WHERE b.bankAccount = :bankAccount ORDER BY b.timestamp, b.id")
+    List<BankHistory> findAllHistoriesByBankAccount(@Param("bankAccount") BankAccount bankAccount);
+
+    @EntityGraph(BankHistory.WITH_USER_AND_ACCOUNT)
+    @Query("SELECT b FROM BankHistory b WHERE b.bankAccount = :bankAccount AND b.timestamp > :from " +
+            "ORDER BY b.timestamp, b.id")
+    List<BankHistory> findAllHistoriesByBankAccountAfter(@Param("bankAccount") BankAccount bankAccount,
+                                                         @Param("from") LocalDateTime from);
 
     default List<BankHistory> findAllHistoriesByBankAccountForLastMonth(BankAccount bankAccount) {
-        LocalDateTime now = LocalDateTime.now().minusMonths(1L);
-        return findAll().stream()
-                .filter(b -> bankAccount.equals(b.getBankAccount())
-                        && b.getTimestamp().isAfter(now))
-                .toList();
+        return findAllHistoriesByBankAccountAfter(bankAccount, LocalDateTime.now().minusMonths(1L));
+    }
+
+    @Query(VIEW + "WHERE b.bankAccount.id = :accountId AND b.timestamp > :from ORDER BY b.timestamp, b.id")
+    List<BankHistoryView> findHistoryViewsByAccountIdAfter(@Param("accountId") Long accountId,
+                                                           @Param("from") LocalDateTime from);
+
+    default List<BankHistoryView> findHistoryViewsByAccountIdForLastMonth(Long accountId) {
+        return findHistoryViewsByAccountIdAfter(accountId, LocalDateTime.now().minusMonths(1L));
     }
+
+    @Query(VIEW + "WHERE b.bankAccount.id = :accountId ORDER BY b.timestamp DESC, b.id DESC")
+    List<BankHistoryView> findHistoryPage(@Param("accountId") Long accountId, Limit limit);
+
+    @Query(VIEW + "WHERE b.bankAccount.id = :accountId " +
+            "AND (b.timestamp < :timestamp OR (b.timestamp = :timestamp AND b.id < :id)) " +
+            "ORDER BY b.timestamp DESC, b.id DESC")
+    List<BankHistoryView> findHistoryPageBefore(@Param("accountId") Long accountId,
+                                                @Param("timestamp") LocalDateTime timestamp,
+                                                @Param("id") Long id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(VIEW + "WHERE b.bankAccount.id = :accountId ORDER BY b.timestamp, b.id")
+    Stream<BankHistoryView> streamAllHistoryViewsByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN b.operation = 'withdraw' THEN -b.amount ELSE b.amount END), 0) " +
+            "FROM BankHistory b WHERE b.bankAccount.id = :accountId AND b.timestamp > :from AND b.timestamp <= :to")
+    long sumChangesBetween(@Param("accountId") Long accountId, @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.budget.planning.repository.projection.BalanceChangeView(b.timestamp, " +
+            "CASE WHEN b.operation = 'withdraw' THEN -b.amount ELSE b.amount END) FROM BankHistory b " +
+            "WHERE b.bankAccount.id = :accountId ORDER BY b.timestamp DESC, b.id DESC")
+    Stream<BalanceChangeView> streamChangesByAccountIdNewestFirst(@Param("accountId") Long accountId);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bankhistory")) //keeps user and account caches warm
+    @Query(value = "DELETE FROM bankhistory WHERE account_id = :accountId LIMIT :limit", nativeQuery = true)
+    int deleteHistoriesChunkByAccountId(@Param("accountId") Long accountId, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BankHistory b WHERE b.bankAccount.id = :accountId")
+    int deleteAllHistoriesByAccountId(@Param("accountId") Long accountId);
 }
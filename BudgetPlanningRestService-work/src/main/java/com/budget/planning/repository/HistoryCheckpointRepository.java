@@ -0,0 +1,10 @@
+package com.budget.planning.repository;
+
+import com.budget.planning.model.HistoryCheckpoint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HistoryCheckpointRepository extends JpaRepository<HistoryCheckpoint,String> {
+}
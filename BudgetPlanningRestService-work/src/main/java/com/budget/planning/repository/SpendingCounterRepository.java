@@ -0,0 +1,19 @@
+package com.budget.planning.repository;
+
+import com.budget.planning.model.SpendingCounter;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SpendingCounterRepository extends JpaRepository<SpendingCounter,Long> {
+    @Modifying
+    @Query("UPDATE SpendingCounter c SET c.dayStart = :#{#counter.dayStart}, c.daySpent = :#{#counter.daySpent}, " +
+            "c.weekStart = :#{#counter.weekStart}, c.weekSpent = :#{#counter.weekSpent}, " +
+            "c.monthStart = :#{#counter.monthStart}, c.monthSpent = :#{#counter.monthSpent}, c.version = c.version + 1 " +
+            "WHERE c.userId = :#{#counter.userId} AND c.version = :#{#counter.version}")
+    int update(@Param("counter") SpendingCounter counter);
+}
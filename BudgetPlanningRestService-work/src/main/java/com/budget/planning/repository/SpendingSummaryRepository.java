@@ -0,0 +1,39 @@
+package com.budget.planning.repository;
+
+import com.budget.planning.model.SpendingSummary;
+import com.budget.planning.repository.projection.SummaryView;
+
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+public interface SpendingSummaryRepository extends JpaRepository<SpendingSummary,SpendingSummary.Key> {
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "spending_summary")) //keeps user and account caches warm
+    @Query(value = "INSERT INTO spending_summary(account_id, month_start, user_id, operation, total, operations) " +
+            "VALUES (:accountId, :monthStart, :userId, :operation, :amount, :count) " +
+            "ON DUPLICATE KEY UPDATE total = total + :amount, operations = operations + :count", nativeQuery = true)
+    int add(@Param("accountId") Long accountId, @Param("monthStart") LocalDate monthStart,
+            @Param("userId") Long userId, @Param("operation") String operation,
+            @Param("amount") long amount, @Param("count") int count);
+
+    @Query("SELECT new com.budget.planning.repository.projection.SummaryView(u.name, u.email, s.id.operation, " +
+            "s.total, s.operations) FROM SpendingSummary s JOIN User u ON u.user_id = s.id.userId " +
+            "WHERE s.id.accountId = :accountId AND s.id.monthStart = :monthStart")
+    List<SummaryView> findSummaryViews(@Param("accountId") Long accountId, @Param("monthStart") LocalDate monthStart);
+
+    @Modifying
+    @Query("DELETE FROM SpendingSummary s WHERE s.id.accountId = :accountId")
+    int deleteAllByAccountId(@Param("accountId") Long accountId);
+}
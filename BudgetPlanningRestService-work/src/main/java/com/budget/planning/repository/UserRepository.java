@@ -3,19 +3,25 @@ package com.budget.planning.repository;
 import com.budget.planning.model.BankAccount;
 import com.budget.planning.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User,Long> {
-    Optional<User> findUserByEmail(String email);
+public interface UserRepository extends JpaRepository<User,Long>, UserRepositoryCustom {
+    @Query("SELECT u FROM User u WHERE u.bankAccount = :bankAccount")
+    List<User> findAllUsersByBankAccount(@Param("bankAccount") BankAccount bankAccount);
 
-    default List<User> findAllUsersByBankAccount(BankAccount bankAccount) {
-        return findAll().stream()
-                .filter(u -> bankAccount.equals(u.getBankAccount()))
-                .toList();
-    }
+    @Query("SELECT u.email FROM User u WHERE u.bankAccount.id = :accountId")
+    List<String> findAllEmailsByBankAccountId(@Param("accountId") Long accountId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.bankAccount = NULL, u.version = u.version + 1 " +
+            "WHERE u.bankAccount.id = :accountId")
+    int detachAllUsersFromBankAccount(@Param("accountId") Long accountId);
 }
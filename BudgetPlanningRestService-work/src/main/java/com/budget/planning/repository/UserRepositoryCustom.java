@@ -0,0 +1,9 @@
+package com.budget.planning.repository;
+
+import com.budget.planning.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    Optional<User> findUserByEmail(String email);
+}
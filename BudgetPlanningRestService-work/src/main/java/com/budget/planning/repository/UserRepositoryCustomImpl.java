@@ -0,0 +1,26 @@
+package com.budget.planning.repository;
+
+import com.budget.planning.model.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //email is the natural id, so hot users are resolved from the second-level cache without a query;
+    //not read only, credentials always come from the primary, a replica may still miss a new user
+    @Override
+    @Transactional
+    public Optional<User> findUserByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+}
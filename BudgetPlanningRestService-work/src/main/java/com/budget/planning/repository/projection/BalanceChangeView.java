@@ -0,0 +1,13 @@
+package com.budget.planning.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BalanceChangeView {
+    private LocalDateTime timestamp;
+    private Integer change;
+}
@@ -0,0 +1,19 @@
+package com.budget.planning.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BankHistoryView {
+    private Long id;
+    private LocalDateTime timestamp;
+    private String operation;
+    private String reason;
+    private Integer amount;
+    private String name;
+    private String email;
+    private Integer usage_limit;
+}
@@ -0,0 +1,14 @@
+package com.budget.planning.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SummaryView {
+    private String name;
+    private String email;
+    private String operation;
+    private Long total;
+    private Integer operations;
+}
@@ -0,0 +1,140 @@
+package com.budget.planning.service;
+
+import com.budget.planning.exception.AccountUpdateException;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+@Component
+public class AccountWriteEngine {
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final List<Lane> lanes = new ArrayList<>();
+
+    public AccountWriteEngine(TransactionTemplate transactionTemplate,
+                              @Value("${budget.engine.enabled:true}") boolean enabled,
+                              @Value("${budget.engine.lanes:0}") int lanes,
+                              @Value("${budget.engine.batch-size:32}") int batchSize,
+                              @Value("${budget.engine.queue-capacity:10000}") int queueCapacity) {
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+
+        if (enabled) {
+            int count = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+            for (int i = 0; i < count; i++) {
+                this.lanes.add(new Lane(i, queueCapacity));
+            }
+        }
+    }
+
+    //waits for the operation and rethrows its own exception, so callers see the same errors as before
+    public <T> T execute(Long accountId, Supplier<T> operation) {
+        try {
+            return submit(accountId, operation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    //operations on one account run one after another on the same lane, in the order they were submitted
+    public <T> CompletableFuture<T> submit(Long accountId, Supplier<T> operation) {
+        Task<T> task = new Task<>(operation, new CompletableFuture<>());
+        if (lanes.isEmpty()) {
+            runAlone(task);
+        } else if (!lanes.get(Math.floorMod(Long.hashCode(accountId), lanes.size())).queue.offer(task)) {
+            throw new AccountUpdateException("Too many operations on this account, try again later");
+        }
+
+        return task.result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.forEach(x -> x.thread.interrupt());
+    }
+
+    private void runBatch(List<Task<?>> batch) {
+        if (batch.size() == 1) {
+            runAlone(batch.get(0));
+            return;
+        }
+
+        List<Object> results = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(x -> results.add(x.operation.get())));
+        } catch (RuntimeException e) {
+            // one failed operation rolls back the whole batch, each operation is then retried in its own transaction
+            batch.forEach(this::runAlone);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+    }
+
+    private <T> void runAlone(Task<T> task) {
+        try {
+            task.result.complete(transactionTemplate.execute(status -> task.operation.get()));
+        } catch (RuntimeException e) {
+            task.result.completeExceptionally(e);
+        }
+    }
+
+    private record Task<T>(Supplier<T> operation, CompletableFuture<T> result) {
+        @SuppressWarnings("unchecked")
+        void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+
+    private class Lane implements Runnable {
+        private final BlockingQueue<Task<?>> queue;
+        private final Thread thread;
+
+        Lane(int index, int queueCapacity) {
+            this.queue = new LinkedBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "account-lane-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            List<Task<?>> batch = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                try {
+                    runBatch(batch);
+                } catch (Throwable e) {
+                    batch.forEach(x -> x.result.completeExceptionally(e));
+                }
+                batch.clear();
+            }
+
+            List<Task<?>> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            pending.forEach(x -> x.result.completeExceptionally(
+                    new AccountUpdateException("The service is shutting down, try again later")));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.budget.planning.service;
+
+import com.budget.planning.exception.AccountUpdateException;
+import com.budget.planning.model.BalanceSnapshot;
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.repository.BalanceSnapshotRepository;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.projection.BalanceChangeView;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Component
+public class BalanceSnapshotter {
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final BankHistoryRepository bankHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean backfill;
+    private final int checkpointInterval;
+    private final Clock clock;
+
+    @Autowired
+    public BalanceSnapshotter(BalanceSnapshotRepository balanceSnapshotRepository,
+                              BankAccountRepository bankAccountRepository,
+                              BankHistoryRepository bankHistoryRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${budget.snapshots.chunk-size:500}") int chunkSize,
+                              @Value("${budget.snapshots.backfill:true}") boolean backfill,
+                              @Value("${budget.snapshots.checkpoint-interval:1000}") int checkpointInterval) {
+        this(balanceSnapshotRepository, bankAccountRepository, bankHistoryRepository, transactionTemplate, chunkSize,
+                backfill, checkpointInterval, Clock.systemDefaultZone());
+    }
+
+    public BalanceSnapshotter(BalanceSnapshotRepository balanceSnapshotRepository,
+                              BankAccountRepository bankAccountRepository,
+                              BankHistoryRepository bankHistoryRepository,
+                              TransactionTemplate transactionTemplate, int chunkSize, boolean backfill,
+                              int checkpointInterval, Clock clock) {
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.bankHistoryRepository = bankHistoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.backfill = backfill;
+        this.checkpointInterval = checkpointInterval;
+        this.clock = clock;
+    }
+
+    @Scheduled(cron = "${budget.snapshots.cron:0 0 0 * * *}")
+    public void takeSnapshots() {
+        Long afterId = 0L;
+        while (afterId != null) {
+            Long from = afterId;
+            afterId = transactionTemplate.execute(status -> {
+                List<BankAccount> accounts = bankAccountRepository.findLockedPage(from, Limit.of(chunkSize));
+                snapshot(accounts);
+                return accounts.size() < chunkSize ? null : accounts.get(accounts.size() - 1).getId();
+            });
+        }
+    }
+
+    //accounts that had history before snapshots were taken get checkpoints once, later starts find none left
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCheckpoints() {
+        if (!backfill) {
+            return;
+        }
+
+        // candidates come from a plain read, each one is locked and checked again on its own
+        List<Long> ids;
+        Long afterId = 0L;
+        do {
+            ids = bankAccountRepository.findIdsWithoutCheckpoints(afterId, Limit.of(chunkSize));
+            for (Long id : ids) {
+                transactionTemplate.executeWithoutResult(status -> bankAccountRepository
+                        .findLockedByIdWithoutCheckpoints(id)
+                        .ifPresent(this::checkpoint));
+            }
+            afterId = ids.isEmpty() ? afterId : ids.get(ids.size() - 1);
+        } while (ids.size() == chunkSize);
+    }
+
+    //must run in the transaction that creates the account
+    public void open(BankAccount bankAccount) {
+        snapshot(List.of(bankAccount));
+    }
+
+    //the nearest snapshot is an index seek, only the history between it and asOf is summed
+    public int balanceAt(Long accountId, LocalDateTime asOf) {
+        Optional<BalanceSnapshot> before = balanceSnapshotRepository
+                .findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(accountId, asOf);
+        if (before.isPresent()) {
+            return before.get().getBalance() + (int) bankHistoryRepository.sumChangesBetween(accountId,
+                    before.get().getTakenAt(), asOf);
+        }
+
+        // older than the first snapshot, so the history is played backwards from it, or from the current balance
+        // of an account that has no snapshot yet
+        Optional<BalanceSnapshot> after = balanceSnapshotRepository
+                .findFirstByAccountIdAndTakenAtGreaterThanOrderByTakenAt(accountId, asOf);
+        if (after.isPresent()) {
+            return after.get().getBalance() - (int) bankHistoryRepository.sumChangesBetween(accountId, asOf,
+                    after.get().getTakenAt());
+        }
+
+        BankAccount bankAccount = bankAccountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountUpdateException("You do not have a bank account!"));
+        return bankAccount.getBalance() - (int) bankHistoryRepository.sumChangesBetween(accountId, asOf,
+                LocalDateTime.now(clock));
+    }
+
+    public void deleteSnapshots(Long accountId) {
+        balanceSnapshotRepository.deleteAllByAccountId(accountId);
+    }
+
+    //the accounts are locked, so every operation before takenAt is in the balance and every later one is after it
+    private void snapshot(List<BankAccount> accounts) {
+        LocalDateTime takenAt = LocalDateTime.now(clock);
+
+        balanceSnapshotRepository.saveAll(accounts.stream()
+                .map(x -> snapshot(x.getId(), takenAt, x.getBalance()))
+                .toList());
+    }
+
+    //the history is walked back from the locked balance, so no balanceAt query sums more than an interval of it
+    private void checkpoint(BankAccount bankAccount) {
+        List<BalanceSnapshot> snapshots = new ArrayList<>();
+        snapshots.add(snapshot(bankAccount.getId(), LocalDateTime.now(clock), bankAccount.getBalance()));
+
+        int balance = bankAccount.getBalance();
+        int sinceCheckpoint = 0;
+        LocalDateTime newer = null;
+        try (Stream<BalanceChangeView> changes = bankHistoryRepository
+                .streamChangesByAccountIdNewestFirst(bankAccount.getId())) {
+            for (BalanceChangeView change : (Iterable<BalanceChangeView>) changes::iterator) {
+                // a checkpoint has to include every operation of its moment, so it only goes between two of them
+                if (sinceCheckpoint >= checkpointInterval && newer.isAfter(change.getTimestamp())) {
+                    snapshots.add(snapshot(bankAccount.getId(), change.getTimestamp(), balance));
+                    sinceCheckpoint = 0;
+                }
+                balance -= change.getChange();
+                sinceCheckpoint++;
+                newer = change.getTimestamp();
+            }
+        }
+        if (newer != null) {
+            snapshots.add(snapshot(bankAccount.getId(), newer.minusSeconds(1), balance));
+        }
+
+        balanceSnapshotRepository.saveAll(snapshots);
+    }
+
+    private BalanceSnapshot snapshot(Long accountId, LocalDateTime takenAt, int balance) {
+        return BalanceSnapshot.builder()
+                .accountId(accountId)
+                .takenAt(takenAt)
+                .balance(balance)
+                .build();
+    }
+}
@@ -1,120 +1,326 @@
 package com.budget.planning.service;
 
 import com.budget.planning.configuration.Mapper;
+import com.budget.planning.configuration.metrics.BudgetMetrics;
+import com.budget.planning.configuration.retry.RetryOnConflict;
 import com.budget.planning.configuration.security.Role;
+import com.budget.planning.configuration.security.UserPrincipalCache;
 import com.budget.planning.dto.request.AccountRegistrationRequest;
 import com.budget.planning.dto.request.AccountUpdateRequest;
+import com.budget.planning.dto.request.BatchOperationRequest;
+import com.budget.planning.dto.request.BatchRequest;
 import com.budget.planning.dto.request.LimitUpdateRequest;
+import com.budget.planning.dto.request.PageCursor;
+import com.budget.planning.dto.request.SpendingLimitRequest;
 import com.budget.planning.dto.request.UpdateUserRequest;
 import com.budget.planning.dto.response.*;
 import com.budget.planning.exception.AccountUpdateException;
 import com.budget.planning.exception.BankHistoryException;
 import com.budget.planning.exception.LimitUpdateException;
+import com.budget.planning.exception.WithdrawalRejectedException;
 import com.budget.planning.model.BankAccount;
 import com.budget.planning.model.BankHistory;
 import com.budget.planning.model.User;
 import com.budget.planning.repository.BankAccountRepository;
 import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.SpendingSummaryRepository;
 import com.budget.planning.repository.UserRepository;
+import com.budget.planning.repository.projection.BankHistoryView;
+import com.budget.planning.repository.projection.SummaryView;
+
+import io.micrometer.core.annotation.Timed;
 
 import lombok.AllArgsConstructor;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @AllArgsConstructor
+@Timed("budget.service") //one latency histogram per public method, tagged with the method name
 public class BudgetPlanningService {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final BankAccountRepository bankAccountRepository;
     private final BankHistoryRepository bankHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserPrincipalCache userPrincipalCache;
+    private final AccountWriteEngine accountWriteEngine;
+    private final HistoryJournal historyJournal;
+    private final SpendingLimiter spendingLimiter;
+    private final SpendingSummaryRepository spendingSummaryRepository;
+    private final BalanceSnapshotter balanceSnapshotter;
+    private final BudgetMetrics budgetMetrics;
 
+        @RetryOnConflict
         @Transactional
         public AccountUpdateDTO registerAccount(AccountRegistrationRequest accountRequest, User user) {
+            User owner = userRepository.findById(user.getUser_id())
+                    .orElseThrow(() -> new AccountUpdateException("There are no users with that username"));
             BankAccount bankAccount = bankAccountRepository.save
                     (BankAccount.builder().balance(accountRequest.getBalance()).build());
+            balanceSnapshotter.open(bankAccount);
 
-            user.setBankAccount(bankAccount);
-            userRepository.save(user);
+            owner.setBankAccount(bankAccount);
+            userRepository.save(owner);
+            userPrincipalCache.evict(owner.getEmail());
 
             return Mapper.mapToAccountRegistration(bankAccount);
         }
 
-    @Transactional
+    @RetryOnConflict(account = "#user.bankAccount?.id")
     public AccountUpdateDTO replenishAccount(AccountUpdateRequest accountRequest, User user) {
-        BankAccount bankAccount = Optional.ofNullable(user.getBankAccount())
-                .orElseThrow(() -> new AccountUpdateException("You do not have a bank account!"));
-        bankAccount.setBalance(bankAccount.getBalance() + accountRequest.getAmount());
-        bankAccountRepository.save(bankAccount);
+        Long accountId = getAccountId(user);
 
-        BankHistory bankHistory = BankHistory.builder()
-                .operation("replenish")
-                .reason(accountRequest.getReason())
-                .timestamp(LocalDateTime.now())
-                .amount(accountRequest.getAmount())
-                .bankAccount(bankAccount)
-                .user(user)
-                .build();
-        bankHistoryRepository.save(bankHistory);
+        return accountWriteEngine.execute(accountId, () -> {
+            if (bankAccountRepository.replenish(accountId, accountRequest.getAmount()) == 0) {
+                throw new AccountUpdateException("You do not have a bank account!");
+            }
 
-        return Mapper.mapToAccountRegistration(bankAccount);
+            return saveOperation("replenish", accountRequest, accountId, user);
+        }).join();
     }
 
-    @Transactional
+    @RetryOnConflict(account = "#user.bankAccount?.id")
     public AccountUpdateDTO withdrawAccount(AccountUpdateRequest accountRequest, User user) {
-        if (accountRequest.getAmount() > user.getUsage_limit()) {
-            throw new AccountUpdateException("Your usage limit does not allow you to perform this operation");
+        try {
+            if (accountRequest.getAmount() > user.getUsage_limit()) {
+                throw new WithdrawalRejectedException("usage");
+            }
+            Long accountId = getAccountId(user);
+
+            return accountWriteEngine.execute(accountId, () -> {
+                spendingLimiter.charge(user, accountRequest.getAmount());
+                // the balance check is part of the update, so concurrent withdrawals can not overdraw the account
+                if (bankAccountRepository.withdraw(accountId, accountRequest.getAmount()) == 0) {
+                    if (!bankAccountRepository.existsById(accountId)) {
+                        throw new AccountUpdateException("You do not have a bank account!");
+                    }
+                    throw new WithdrawalRejectedException("balance");
+                }
+
+                return saveOperation("withdraw", accountRequest, accountId, user);
+            }).join();
+        } catch (WithdrawalRejectedException e) {
+            // counted once the lane is done, it replays the operations of a failed batch one by one
+            budgetMetrics.withdrawalRejected(e.getReason());
+            throw e;
         }
-        BankAccount bankAccount = Optional.ofNullable(user.getBankAccount())
-                .orElseThrow(() -> new AccountUpdateException("You do not have a bank account!"));
+    }
+
+    @RetryOnConflict(account = "#user.bankAccount?.id")
+    public BatchDTO applyBatch(BatchRequest batchRequest, User user) {
+        Long accountId = getAccountId(user);
+        boolean allOrNothing = "all_or_nothing".equalsIgnoreCase(batchRequest.getMode());
+
+        List<String> rejections = new ArrayList<>();
+        try {
+            BatchDTO batch = accountWriteEngine.execute(accountId,
+                    () -> applyOperations(batchRequest, user, accountId, allOrNothing, rejections)).join();
+            // counted once the lane is done, it replays the operations of a failed batch one by one
+            rejections.forEach(budgetMetrics::withdrawalRejected);
+            return batch;
+        } catch (WithdrawalRejectedException e) {
+            budgetMetrics.withdrawalRejected(e.getReason());
+            throw e;
+        }
+    }
 
-        int newBalance = bankAccount.getBalance() - accountRequest.getAmount();
-        if (newBalance < 0) {
-            throw new AccountUpdateException("Balance can not become less than zero after operation");
+    private CompletableFuture<BatchDTO> applyOperations(BatchRequest batchRequest, User user, Long accountId,
+                                                        boolean allOrNothing, List<String> rejections) {
+        rejections.clear();
+        Integer locked = bankAccountRepository.findLockedBalanceById(accountId);
+        if (locked == null) {
+            throw new AccountUpdateException("You do not have a bank account!");
         }
 
-        bankAccount.setBalance(newBalance);
-        bankAccountRepository.save(bankAccount);
+        // the operations are played against the locked balance first, then written with one update
+        int balance = locked;
+        List<BatchItemDTO> results = new ArrayList<>(batchRequest.getOperations().size());
+        List<BatchOperationRequest> applied = new ArrayList<>();
+        int withdrawn = 0;
+        for (BatchOperationRequest operation : batchRequest.getOperations()) {
+            String type = operation.getType().toLowerCase();
+            String rejected = type.equals("withdraw")
+                    ? rejectWithdrawal(user, operation.getAmount(), balance, withdrawn)
+                    : null;
+            String error = rejected == null ? null : WithdrawalRejectedException.message(rejected);
+            if (rejected != null) {
+                rejections.add(rejected);
+            }
+            if (error == null && type.equals("withdraw")) {
+                balance -= operation.getAmount();
+                withdrawn += operation.getAmount();
+                applied.add(operation);
+            } else if (error == null) {
+                balance += operation.getAmount();
+                applied.add(operation);
+            }
 
+            results.add(BatchItemDTO.builder()
+                    .index(results.size())
+                    .type(type)
+                    .amount(operation.getAmount())
+                    .status(error == null ? "applied" : "rejected")
+                    .error(error)
+                    .build());
+        }
+
+        if (allOrNothing && applied.size() < results.size()) {
+            results.stream()
+                    .filter(x -> x.getError() == null)
+                    .forEach(x -> x.setStatus("skipped"));
+
+            return CompletableFuture.completedFuture(BatchDTO.builder()
+                    .account_id(accountId)
+                    .balance(locked)
+                    .applied(0)
+                    .results(results)
+                    .build());
+        }
+
+        spendingLimiter.charge(user, withdrawn);
+        int withdrawals = (int) applied.stream().filter(x -> x.getType().equalsIgnoreCase("withdraw")).count();
+        LocalDateTime timestamp = LocalDateTime.now();
+        summarize(accountId, user, timestamp, "replenish", balance - locked + withdrawn,
+                applied.size() - withdrawals);
+        summarize(accountId, user, timestamp, "withdraw", withdrawn, withdrawals);
+        //the net change of the batch, the withdrawals were already checked against the locked balance
+        bankAccountRepository.replenish(accountId, balance - locked);
+        BatchDTO batch = BatchDTO.builder()
+                .account_id(accountId)
+                .balance(balance)
+                .applied(applied.size())
+                .results(results)
+                .build();
+
+        return historyJournal.record(applied.stream()
+                        .map(operation -> BankHistory.builder()
+                                .operation(operation.getType().toLowerCase())
+                                .reason(operation.getReason())
+                                .timestamp(timestamp)
+                                .amount(operation.getAmount())
+                                .bankAccount(bankAccountRepository.getReferenceById(accountId))
+                                .user(user)
+                                .build())
+                        .toList())
+                .thenApply(x -> batch);
+    }
+
+    //reason the withdrawal is rejected for, null if it can be applied
+    private String rejectWithdrawal(User user, int amount, int balance, int withdrawn) {
+        if (amount > user.getUsage_limit()) {
+            return "usage";
+        }
+        if (balance - amount < 0) {
+            return "balance";
+        }
+
+        return spendingLimiter.check(user, withdrawn + amount).orElse(null);
+    }
+
+    private Long getAccountId(User user) {
+        return Optional.ofNullable(user.getBankAccount())
+                .map(BankAccount::getId)
+                .orElseThrow(() -> new AccountUpdateException("You do not have a bank account!"));
+    }
+
+    //the result completes once the journal has the history, the balance update itself is already committed by then;
+    //the update holds the row lock, so a snapshot can not fall between the timestamp and the balance it belongs to
+    private CompletableFuture<AccountUpdateDTO> saveOperation(String operation, AccountUpdateRequest accountRequest,
+                                                              Long accountId, User user) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        summarize(accountId, user, timestamp, operation, accountRequest.getAmount(), 1);
         BankHistory bankHistory = BankHistory.builder()
-                .operation("withdraw")
+                .operation(operation)
                 .reason(accountRequest.getReason())
-                .timestamp(LocalDateTime.now())
+                .timestamp(timestamp)
                 .amount(accountRequest.getAmount())
-                .bankAccount(bankAccount)
+                .bankAccount(bankAccountRepository.getReferenceById(accountId))
                 .user(user)
                 .build();
-        bankHistoryRepository.save(bankHistory);
+        CompletableFuture<Void> journaled = historyJournal.record(List.of(bankHistory));
+
+        AccountUpdateDTO accountUpdate = AccountUpdateDTO.builder()
+                .account_id(accountId)
+                .balance(bankAccountRepository.findBalanceById(accountId))
+                .build();
 
-        return Mapper.mapToAccountRegistration(bankAccount);
+        return journaled.thenApply(x -> accountUpdate);
     }
 
-    private final BankAccount emptyAccount = new BankAccount();
+    //runs in the transaction of the balance update, so the summary never disagrees with the committed operations
+    private void summarize(Long accountId, User user, LocalDateTime timestamp, String operation, int amount, int count) {
+        if (count == 0) {
+            return;
+        }
+
+        spendingSummaryRepository.add(accountId, timestamp.toLocalDate().withDayOfMonth(1), user.getUser_id(),
+                operation, amount, count);
+    }
 
+    @RetryOnConflict(account = "#user.bankAccount?.id")
     @Transactional
     public UserWithLimitDTO updateLimit(LimitUpdateRequest limitRequest, User user) {
-        User child = userRepository.findUserByEmail(limitRequest.getUsername())
-                .orElseThrow(() -> new LimitUpdateException("No user with such username"));
-        if (!Optional.ofNullable(child.getBankAccount()).orElse(emptyAccount)
-                .equals(user.getBankAccount()) || !Role.CHILD.equals(child.getRole())) {
-            throw new LimitUpdateException("You can't change limit of this user");
-        }
+        User child = findChild(limitRequest.getUsername(), user);
 
         child.setUsage_limit(limitRequest.getUsage_limit());
         userRepository.save(child);
+        userPrincipalCache.evict(child.getEmail());
+
+        return Mapper.mapToUserWithLimitDTO(child);
+    }
+
+    @RetryOnConflict(account = "#user.bankAccount?.id")
+    @Transactional
+    public UserWithLimitDTO updateSpendingLimits(SpendingLimitRequest limitRequest, User user) {
+        User child = findChild(limitRequest.getUsername(), user);
+
+        child.setDaily_limit(limitRequest.getDaily_limit());
+        child.setWeekly_limit(limitRequest.getWeekly_limit());
+        child.setMonthly_limit(limitRequest.getMonthly_limit());
+        userRepository.save(child);
+        userPrincipalCache.evict(child.getEmail());
 
         return Mapper.mapToUserWithLimitDTO(child);
     }
 
+    private User findChild(String username, User user) {
+        User child = userRepository.findUserByEmail(username)
+                .orElseThrow(() -> new LimitUpdateException("No user with such username"));
+        Long childAccountId = Optional.ofNullable(child.getBankAccount()).map(BankAccount::getId).orElse(null);
+        Long accountId = Optional.ofNullable(user.getBankAccount()).map(BankAccount::getId).orElse(null);
+        if (childAccountId == null || !childAccountId.equals(accountId) || !Role.CHILD.equals(child.getRole())) {
+            throw new LimitUpdateException("You can't change limit of this user");
+        }
+
+        return child;
+    }
+
+    @Transactional(readOnly = true)
     public List<BankHistoryDTO> getAccountHistory(User user) {
         BankAccount bankAccount = Optional.ofNullable(user.getBankAccount())
                 .orElseThrow(() -> new BankHistoryException("You do not have a bank account!"));
 
-        List<BankHistory> bankHistories = bankHistoryRepository.findAllHistoriesByBankAccountForLastMonth(bankAccount);
+        List<BankHistoryView> bankHistories = bankHistoryRepository
+                .findHistoryViewsByAccountIdForLastMonth(bankAccount.getId());
         if (bankHistories.isEmpty()) {
             throw new BankHistoryException("No transactions have been performed for this account");
         }
@@ -124,6 +330,116 @@ public class BudgetPlanningService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
+    public PageDTO<BankHistoryDTO> getAccountHistoryPage(User user, int limit, String cursor) {
+        BankAccount bankAccount = Optional.ofNullable(user.getBankAccount())
+                .orElseThrow(() -> new BankHistoryException("You do not have a bank account!"));
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BankHistoryException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        // one extra row tells whether there is a next page without a count query
+        Limit fetch = Limit.of(limit + 1);
+        List<BankHistoryView> bankHistories;
+        if (cursor == null) {
+            bankHistories = bankHistoryRepository.findHistoryPage(bankAccount.getId(), fetch);
+        } else {
+            PageCursor pageCursor = decodeCursor(cursor);
+            bankHistories = bankHistoryRepository.findHistoryPageBefore(bankAccount.getId(),
+                    pageCursor.getTimestamp(), pageCursor.getId(), fetch);
+        }
+
+        String nextCursor = null;
+        if (bankHistories.size() > limit) {
+            bankHistories = bankHistories.subList(0, limit);
+            BankHistoryView last = bankHistories.get(limit - 1);
+            nextCursor = new PageCursor(last.getTimestamp(), last.getId()).encode();
+        }
+
+        return PageDTO.<BankHistoryDTO>builder()
+                .items(bankHistories.stream()
+                        .map(Mapper::mapToBankHistoryDTO)
+                        .toList())
+                .next_cursor(nextCursor)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public AccountSummaryDTO getAccountSummary(User user, String month) {
+        BankAccount bankAccount = Optional.ofNullable(user.getBankAccount())
+                .orElseThrow(() -> new BankHistoryException("You do not have a bank account!"));
+        YearMonth yearMonth;
+        try {
+            yearMonth = month == null ? YearMonth.now() : YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new BankHistoryException("Wrong month, use the yyyy-MM format");
+        }
+
+        // at most two rows per member, however long the history of the month is
+        List<SummaryView> views = spendingSummaryRepository.findSummaryViews(bankAccount.getId(),
+                yearMonth.atDay(1));
+        Map<String, UserSummaryDTO> users = new LinkedHashMap<>();
+        for (SummaryView view : views) {
+            UserSummaryDTO userSummary = users.computeIfAbsent(view.getEmail(), x -> UserSummaryDTO.builder()
+                    .name(view.getName())
+                    .email(view.getEmail())
+                    .replenished(0L)
+                    .withdrawn(0L)
+                    .operations(0)
+                    .build());
+            if (view.getOperation().equals("withdraw")) {
+                userSummary.setWithdrawn(userSummary.getWithdrawn() + view.getTotal());
+            } else {
+                userSummary.setReplenished(userSummary.getReplenished() + view.getTotal());
+            }
+            userSummary.setOperations(userSummary.getOperations() + view.getOperations());
+        }
+
+        return AccountSummaryDTO.builder()
+                .account_id(bankAccount.getId())
+                .month(yearMonth.toString())
+                .replenished(users.values().stream().mapToLong(UserSummaryDTO::getReplenished).sum())
+                .withdrawn(users.values().stream().mapToLong(UserSummaryDTO::getWithdrawn).sum())
+                .users(users.values().stream()
+                        .sorted(Comparator.comparing(UserSummaryDTO::getWithdrawn).reversed())
+                        .toList())
+                .build();
+    }
+
+    public BalanceDTO getBalanceAt(User user, String asOf) {
+        BankAccount bankAccount = Optional.ofNullable(user.getBankAccount())
+                .orElseThrow(() -> new BankHistoryException("You do not have a bank account!"));
+        LocalDateTime dateTime;
+        try {
+            // a date alone means the balance at the end of that day
+            dateTime = asOf == null ? LocalDateTime.now()
+                    : asOf.contains("T") ? LocalDateTime.parse(asOf)
+                    : LocalDate.parse(asOf).atTime(LocalTime.MAX);
+        } catch (DateTimeParseException e) {
+            throw new BankHistoryException("Wrong date, use the yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss format");
+        }
+
+        return BalanceDTO.builder()
+                .account_id(bankAccount.getId())
+                .as_of(dateTime)
+                .balance(balanceSnapshotter.balanceAt(bankAccount.getId(), dateTime))
+                .build();
+    }
+
+    private PageCursor decodeCursor(String cursor) {
+        PageCursor pageCursor;
+        try {
+            pageCursor = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BankHistoryException("Wrong cursor");
+        }
+        if (pageCursor.getTimestamp() == null) {
+            throw new BankHistoryException("Wrong cursor");
+        }
+        return pageCursor;
+    }
+
+    @RetryOnConflict(account = "#userRequest.account_id")
     @Transactional
     public UserDTO updateBankAccount(UpdateUserRequest userRequest) {
         User user = userRepository.findUserByEmail(userRequest.getUsername())
@@ -133,27 +449,68 @@ public class BudgetPlanningService {
 
         user.setBankAccount(bankAccount);
         userRepository.save(user);
+        userPrincipalCache.evict(user.getEmail());
 
         return Mapper.mapToUserDTO(user);
     }
 
+    @Transactional(readOnly = true)
     public List<BankAccountDTO> getAllAccounts() {
-        return bankAccountRepository.findAll().stream()
-                .map(Mapper::mapToBankAccountDTO)
-                .toList();
+        return bankAccountRepository.findAllAccountDTOs();
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
+    public PageDTO<BankAccountDTO> getAccountsPage(int limit, String cursor, Integer minBalance, Integer maxBalance) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new AccountUpdateException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long afterId = 0L;
+        if (cursor != null) {
+            try {
+                afterId = PageCursor.decode(cursor).getId();
+            } catch (IllegalArgumentException e) {
+                throw new AccountUpdateException("Wrong cursor");
+            }
+        }
+
+        List<BankAccountDTO> bankAccounts = bankAccountRepository.findAccountPage(afterId, minBalance, maxBalance,
+                Limit.of(limit + 1));
+
+        String nextCursor = null;
+        if (bankAccounts.size() > limit) {
+            bankAccounts = bankAccounts.subList(0, limit);
+            nextCursor = new PageCursor(null, bankAccounts.get(limit - 1).getId()).encode();
+        }
+
+        return PageDTO.<BankAccountDTO>builder()
+                .items(bankAccounts)
+                .next_cursor(nextCursor)
+                .build();
+    }
+
+    @RetryOnConflict(account = "#id")
     public boolean deleteAccount(Long id) {
-        BankAccount bankAccount = bankAccountRepository.findById(id).orElse(null);
-        if (bankAccount == null) {
+        if (!bankAccountRepository.existsById(id)) {
             return false;
         }
 
-        bankHistoryRepository.deleteAll(bankHistoryRepository.findAllHistoriesByBankAccount(bankAccount));
-        userRepository.findAllUsersByBankAccount(bankAccount)
-                .forEach(u -> {u.setBankAccount(null); userRepository.save(u);});
-        bankAccountRepository.delete(bankAccount);
+        // members lose the account first so no new history is written while it is being removed
+        List<String> members = userRepository.findAllEmailsByBankAccountId(id);
+        userRepository.detachAllUsersFromBankAccount(id);
+        userPrincipalCache.evict(members);
+
+        // every chunk commits on its own, so row locks are held for one chunk at a time
+        int deleted;
+        do {
+            deleted = bankHistoryRepository.deleteHistoriesChunkByAccountId(id, DELETE_CHUNK_SIZE);
+        } while (deleted == DELETE_CHUNK_SIZE);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bankHistoryRepository.deleteAllHistoriesByAccountId(id);
+            spendingSummaryRepository.deleteAllByAccountId(id);
+            balanceSnapshotter.deleteSnapshots(id);
+            bankAccountRepository.deleteById(id);
+        });
 
         return true;
     }
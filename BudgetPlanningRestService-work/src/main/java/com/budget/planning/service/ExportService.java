@@ -0,0 +1,130 @@
+package com.budget.planning.service;
+
+import com.budget.planning.configuration.Mapper;
+import com.budget.planning.dto.response.BankAccountDTO;
+import com.budget.planning.dto.response.BankHistoryDTO;
+import com.budget.planning.exception.BankHistoryException;
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.projection.BankHistoryView;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+@AllArgsConstructor
+public class ExportService {
+    private final BankHistoryRepository bankHistoryRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    @AllArgsConstructor
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        public static Format of(String format) {
+            return Arrays.stream(values())
+                    .filter(f -> f.extension.equalsIgnoreCase(format))
+                    .findFirst()
+                    .orElseThrow(() -> new BankHistoryException("Wrong export format, use ndjson or csv"));
+        }
+    }
+
+    public BankAccount getExportedAccount(User user) {
+        return Optional.ofNullable(user.getBankAccount())
+                .orElseThrow(() -> new BankHistoryException("You do not have a bank account!"));
+    }
+
+    @Transactional(readOnly = true)
+    public void exportAccountHistory(BankAccount bankAccount, Format format, OutputStream out) throws IOException {
+        try (Stream<BankHistoryView> bankHistories = bankHistoryRepository
+                .streamAllHistoryViewsByAccountId(bankAccount.getId())) {
+            Iterator<BankHistoryDTO> rows = bankHistories
+                    .map(Mapper::mapToBankHistoryDTO)
+                    .iterator();
+
+            if (format == Format.NDJSON) {
+                writeNdjson(rows, out);
+            } else {
+                writeCsv(rows, "timestamp,operation,reason,amount,name,email", row -> String.join(",",
+                        DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.getTimestamp()),
+                        escapeCsv(row.getOperation()),
+                        escapeCsv(row.getReason()),
+                        String.valueOf(row.getAmount()),
+                        escapeCsv(row.getUser().getName()),
+                        escapeCsv(row.getUser().getEmail())), out);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportAllAccounts(Integer minBalance, Integer maxBalance, Format format, OutputStream out)
+            throws IOException {
+        try (Stream<BankAccountDTO> bankAccounts = bankAccountRepository
+                .streamAllAccountDTOs(minBalance, maxBalance)) {
+            Iterator<BankAccountDTO> rows = bankAccounts.iterator();
+
+            if (format == Format.NDJSON) {
+                writeNdjson(rows, out);
+            } else {
+                writeCsv(rows, "id,balance", row -> row.getId() + "," + row.getBalance(), out);
+            }
+        }
+    }
+
+    private <T> void writeNdjson(Iterator<T> rows, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                objectMapper.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private <T> void writeCsv(Iterator<T> rows, String header, Function<T, String> line, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(header);
+        writer.write("\r\n");
+        while (rows.hasNext()) {
+            writer.write(line.apply(rows.next()));
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,363 @@
+package com.budget.planning.service;
+
+import com.budget.planning.model.BankHistory;
+import com.budget.planning.model.HistoryCheckpoint;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.HistoryCheckpointRepository;
+import com.budget.planning.repository.UserRepository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class HistoryJournal {
+    public enum Durability { SYNC, GROUP_COMMIT, ASYNC }
+
+    private final BankHistoryRepository bankHistoryRepository;
+    private final HistoryCheckpointRepository historyCheckpointRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper mapper;
+    private final Durability durability;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Path journalFile;
+    private final String checkpoint;
+    private final BlockingQueue<Pending> buffer;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final AtomicLong dropped = new AtomicLong();
+    private FileChannel journal;
+    private Thread flusher;
+    private volatile boolean running;
+    private long lastSeq;
+    private long flushedSeq;
+
+    public HistoryJournal(BankHistoryRepository bankHistoryRepository,
+                          HistoryCheckpointRepository historyCheckpointRepository,
+                          BankAccountRepository bankAccountRepository,
+                          UserRepository userRepository,
+                          TransactionTemplate transactionTemplate,
+                          ObjectMapper mapper,
+                          @Value("${budget.history.durability:sync}") String durability,
+                          @Value("${budget.history.flush-interval:20ms}") Duration flushInterval,
+                          @Value("${budget.history.batch-size:50}") int batchSize,
+                          @Value("${budget.history.buffer-capacity:10000}") int bufferCapacity,
+                          @Value("${budget.history.journal-file:history.journal}") String journalFile,
+                          @Value("${budget.history.instance:}") String instance) {
+        this.bankHistoryRepository = bankHistoryRepository;
+        this.historyCheckpointRepository = historyCheckpointRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.mapper = mapper;
+        this.durability = Durability.valueOf(durability.trim().toUpperCase().replace('-', '_'));
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.journalFile = Path.of(journalFile);
+        this.checkpoint = checkpointName(instance, this.journalFile);
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (durability == Durability.SYNC) {
+            return;
+        }
+
+        lastSeq = historyCheckpointRepository.findById(checkpoint).map(HistoryCheckpoint::getSeq).orElse(0L);
+        flushedSeq = lastSeq;
+        if (durability == Durability.ASYNC) {
+            replay();
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "history-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(Math.max(1000, flushInterval.toMillis() * 10));
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    //sync writes the history in the caller's transaction, otherwise it is handed to the flusher after commit;
+    //the future completes once the history is in the database, or in the journal file for async
+    public CompletableFuture<Void> record(List<BankHistory> histories) {
+        if (durability == Durability.SYNC) {
+            bankHistoryRepository.saveAll(histories);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Pending pending = new Pending(histories.stream().map(JournalEntry::of).toList());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // a rolled back operation never reaches the journal
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(pending);
+                }
+            });
+        } else {
+            append(pending);
+        }
+
+        return pending.done;
+    }
+
+    //the sequence numbers are counted by one process for its own journal file, so every instance keeps its own
+    //checkpoint; without a configured instance the host name tells them apart
+    public static String checkpointName(String instance, Path journalFile) {
+        if (instance.isBlank()) {
+            try {
+                instance = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                instance = "localhost";
+            }
+        }
+        return "bankhistory:" + instance + ":" + journalFile.toAbsolutePath().normalize();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getPending() {
+        return buffer.size();
+    }
+
+    private void append(Pending pending) {
+        boolean journaled = false;
+        appendLock.lock();
+        try {
+            // entries enter the buffer in sequence order, so the checkpoint never skips an unwritten entry
+            pending.entries = pending.entries.stream().map(x -> x.withSeq(++lastSeq)).toList();
+            if (durability == Durability.ASYNC) {
+                journaled = writeToJournal(pending.entries);
+            }
+            buffer.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.done.completeExceptionally(e);
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (journaled) {
+            pending.done.complete(null);
+        }
+    }
+
+    private boolean writeToJournal(List<JournalEntry> entries) {
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (JournalEntry entry : entries) {
+                lines.append(mapper.writeValueAsString(entry)).append('\n');
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                journal.write(bytes);
+            }
+            return true;
+        } catch (IOException e) {
+            //the entry stays in the buffer, its caller waits for the database write instead
+            return false;
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> group = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Pending first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+
+                // everything that arrives within one flush interval goes out in the same insert batch
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (group.size() < batchSize) {
+                    Pending next = buffer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    buffer.drainTo(group, batchSize - group.size());
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                buffer.drainTo(group);
+            }
+
+            flush(group);
+            group.clear();
+        }
+    }
+
+    private void flush(List<Pending> group) {
+        List<JournalEntry> entries = group.stream().flatMap(x -> x.entries.stream()).toList();
+        while (true) {
+            try {
+                if (journal != null) {
+                    journal.force(false);
+                }
+                write(entries);
+                break;
+            } catch (IOException | RuntimeException e) {
+                if (!running) {
+                    group.forEach(x -> x.done.completeExceptionally(e));
+                    return;
+                }
+                // the database is not reachable, the group is kept and written again on the next attempt
+                try {
+                    Thread.sleep(flushInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    running = false;
+                }
+            }
+        }
+        group.forEach(x -> x.done.complete(null));
+
+        if (journal != null && appendLock.tryLock()) {
+            try {
+                if (flushedSeq == lastSeq) {
+                    journal.truncate(0);
+                }
+            } catch (IOException ignored) {
+                //the journal is truncated after a later flush
+            } finally {
+                appendLock.unlock();
+            }
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+
+        List<JournalEntry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            try {
+                JournalEntry entry = mapper.readValue(line, JournalEntry.class);
+                if (entry.seq() > flushedSeq) {
+                    entries.add(entry);
+                }
+            } catch (JsonProcessingException e) {
+                //a line torn by a crash in the middle of a write
+            }
+        }
+
+        for (int i = 0; i < entries.size(); i += batchSize) {
+            write(entries.subList(i, Math.min(entries.size(), i + batchSize)));
+        }
+        lastSeq = Math.max(lastSeq, flushedSeq);
+    }
+
+    private void write(List<JournalEntry> entries) {
+        List<JournalEntry> unwritten = entries.stream().filter(x -> x.seq() > flushedSeq).toList();
+        if (unwritten.isEmpty()) {
+            return;
+        }
+
+        try {
+            writeInTransaction(unwritten);
+        } catch (DataIntegrityViolationException e) {
+            // an entry whose user or account has been deleted would fail every batch, so they are written one by one
+            for (JournalEntry entry : unwritten) {
+                try {
+                    writeInTransaction(List.of(entry));
+                } catch (DataIntegrityViolationException rejected) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void writeInTransaction(List<JournalEntry> entries) {
+        long seq = entries.get(entries.size() - 1).seq();
+        transactionTemplate.executeWithoutResult(status -> {
+            bankHistoryRepository.saveAll(entries.stream().map(this::toHistory).toList());
+            historyCheckpointRepository.save(HistoryCheckpoint.builder().name(checkpoint).seq(seq).build());
+        });
+        flushedSeq = seq;
+    }
+
+    private BankHistory toHistory(JournalEntry entry) {
+        return BankHistory.builder()
+                .timestamp(entry.timestamp())
+                .operation(entry.operation())
+                .reason(entry.reason())
+                .amount(entry.amount())
+                .user(userRepository.getReferenceById(entry.userId()))
+                .bankAccount(bankAccountRepository.getReferenceById(entry.accountId()))
+                .build();
+    }
+
+    record JournalEntry(long seq, LocalDateTime timestamp, String operation, String reason, Integer amount,
+                        Long userId, Long accountId) {
+        static JournalEntry of(BankHistory bankHistory) {
+            return new JournalEntry(0, bankHistory.getTimestamp(), bankHistory.getOperation(),
+                    bankHistory.getReason(), bankHistory.getAmount(), bankHistory.getUser().getUser_id(),
+                    bankHistory.getBankAccount().getId());
+        }
+
+        JournalEntry withSeq(long seq) {
+            return new JournalEntry(seq, timestamp, operation, reason, amount, userId, accountId);
+        }
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private List<JournalEntry> entries;
+
+        Pending(List<JournalEntry> entries) {
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.budget.planning.service;
+
+import com.budget.planning.configuration.security.Role;
+import com.budget.planning.exception.WithdrawalRejectedException;
+import com.budget.planning.model.SpendingCounter;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.SpendingCounterRepository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Optional;
+
+@Component
+public class SpendingLimiter {
+    private final SpendingCounterRepository spendingCounterRepository;
+    private final Clock clock;
+    private final Cache<Long, SpendingCounter> counters;
+
+    @Autowired
+    public SpendingLimiter(SpendingCounterRepository spendingCounterRepository,
+                           @Value("${budget.limits.counter-cache.max-size:10000}") long maxSize) {
+        this(spendingCounterRepository, maxSize, Clock.systemDefaultZone());
+    }
+
+    public SpendingLimiter(SpendingCounterRepository spendingCounterRepository, long maxSize, Clock clock) {
+        this.spendingCounterRepository = spendingCounterRepository;
+        this.clock = clock;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    //the first period limit that spending this much more would break: daily, weekly or monthly
+    public Optional<String> check(User user, int amount) {
+        if (!Role.CHILD.equals(user.getRole())) {
+            return Optional.empty();
+        }
+
+        return exceeded(user, current(user.getUser_id()), amount);
+    }
+
+    //must run in the transaction of the withdrawal, the counter moves only if it commits
+    public void charge(User user, int amount) {
+        if (!Role.CHILD.equals(user.getRole()) || amount == 0) {
+            return;
+        }
+
+        SpendingCounter counter = current(user.getUser_id());
+        exceeded(user, counter, amount).ifPresent(period -> {
+            throw new WithdrawalRejectedException(period);
+        });
+
+        SpendingCounter charged = counter.toBuilder()
+                .daySpent(counter.getDaySpent() + amount)
+                .weekSpent(counter.getWeekSpent() + amount)
+                .monthSpent(counter.getMonthSpent() + amount)
+                .build();
+        if (charged.getVersion() == null) {
+            try {
+                charged = spendingCounterRepository.saveAndFlush(charged);
+            } catch (DataIntegrityViolationException e) {
+                throw new OptimisticLockingFailureException("Spending counter was created by another request", e);
+            }
+        } else if (spendingCounterRepository.update(charged) == 0) {
+            counters.invalidate(user.getUser_id());
+            throw new OptimisticLockingFailureException("Spending counter was changed by another request");
+        } else {
+            charged = charged.toBuilder().version(charged.getVersion() + 1).build();
+        }
+
+        cacheCharged(user.getUser_id(), charged);
+    }
+
+    private Optional<String> exceeded(User user, SpendingCounter counter, int amount) {
+        String period = null;
+        if (user.getDaily_limit() != null && counter.getDaySpent() + amount > user.getDaily_limit()) {
+            period = "daily";
+        } else if (user.getWeekly_limit() != null && counter.getWeekSpent() + amount > user.getWeekly_limit()) {
+            period = "weekly";
+        } else if (user.getMonthly_limit() != null && counter.getMonthSpent() + amount > user.getMonthly_limit()) {
+            period = "monthly";
+        }
+
+        return Optional.ofNullable(period);
+    }
+
+    //a period that has ended starts again from zero, so the check never depends on the length of the history
+    private SpendingCounter current(Long userId) {
+        SpendingCounter counter = counters.get(userId, id -> spendingCounterRepository.findById(id)
+                .orElse(SpendingCounter.builder().userId(id).build()));
+        LocalDate today = LocalDate.now(clock);
+        LocalDate week = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate month = today.withDayOfMonth(1);
+
+        return counter.toBuilder()
+                .dayStart(today)
+                .daySpent(today.equals(counter.getDayStart()) ? counter.getDaySpent() : 0)
+                .weekStart(week)
+                .weekSpent(week.equals(counter.getWeekStart()) ? counter.getWeekSpent() : 0)
+                .monthStart(month)
+                .monthSpent(month.equals(counter.getMonthStart()) ? counter.getMonthSpent() : 0)
+                .build();
+    }
+
+    //cached right away, so a second withdrawal in the same transaction builds on this one
+    private void cacheCharged(Long userId, SpendingCounter counter) {
+        counters.put(userId, counter);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        counters.invalidate(userId);
+                    }
+                }
+            });
+        }
+    }
+}
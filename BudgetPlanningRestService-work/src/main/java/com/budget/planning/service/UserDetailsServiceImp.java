@@ -1,14 +1,21 @@
 package com.budget.planning.service;
 
+import com.budget.planning.configuration.metrics.BudgetMetrics;
 import com.budget.planning.configuration.security.Role;
+import com.budget.planning.configuration.security.TokenService;
 import com.budget.planning.configuration.security.UserAdapter;
+import com.budget.planning.configuration.security.UserPrincipalCache;
+import com.budget.planning.dto.request.LoginRequest;
 import com.budget.planning.dto.request.UserRegistrationRequest;
+import com.budget.planning.dto.response.TokenDTO;
+import com.budget.planning.exception.LoginException;
 import com.budget.planning.model.User;
 import com.budget.planning.repository.BankAccountRepository;
 import com.budget.planning.repository.UserRepository;
 
 import lombok.AllArgsConstructor;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,6 +32,9 @@ public class UserDetailsServiceImp implements UserDetailsService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final BankAccountRepository bankAccountRepository;
+    private final TokenService tokenService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final BudgetMetrics budgetMetrics;
 
     public ResponseEntity<String> register(UserRegistrationRequest userRegistrationRequest) {
         if (userRepository.findUserByEmail(userRegistrationRequest.getEmail()).isPresent()) {
@@ -47,7 +57,12 @@ public class UserDetailsServiceImp implements UserDetailsService {
                 .bankAccount(bankAccountRepository.findById(userRegistrationRequest.getAccount_id())
                         .orElse(null))
                 .build();
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>("Such a user already exists!",
+                    HttpStatus.BAD_REQUEST);
+        }
 
         if (user.getBankAccount() == null) {
             return new ResponseEntity<>("Successfully registered, your email is your username." +
@@ -56,9 +71,24 @@ public class UserDetailsServiceImp implements UserDetailsService {
         return new ResponseEntity<>("Successfully registered, your email is your username", HttpStatus.OK);
     }
 
+    public TokenDTO login(LoginRequest loginRequest) {
+        User user = userRepository.findUserByEmail(loginRequest.getEmail())
+                .filter(x -> passwordEncoder.matches(loginRequest.getPassword(), x.getPassword()))
+                .orElseThrow(() -> {
+                    budgetMetrics.authFailed("login");
+                    return new LoginException("Wrong email or password");
+                });
+
+        return TokenDTO.builder()
+                .access_token(tokenService.issue(user.getEmail()))
+                .token_type("Bearer")
+                .expires_in(tokenService.getTtl().toSeconds())
+                .build();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findUserByEmail(username)
+        User user = userPrincipalCache.get(username, userRepository::findUserByEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("Not found!"));
 
         return new UserAdapter(user);
@@ -0,0 +1,105 @@
+package com.budget.planning;
+
+import com.budget.planning.exception.AccountUpdateException;
+import com.budget.planning.service.AccountWriteEngine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AccountWriteEngineTest {
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    AccountWriteEngine accountWriteEngine = new AccountWriteEngine(new TransactionTemplate(transactionManager),
+            true, 2, 32, 100);
+
+    @AfterEach
+    void shutdown() {
+        accountWriteEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test for submit() method(queued operations share one transaction)")
+    void testSubmit_Batched() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var applied = new CopyOnWriteArrayList<Integer>();
+
+        var first = accountWriteEngine.submit(1L, () -> {
+            started.countDown();
+            await(release);
+            applied.add(0);
+            return 0;
+        });
+        started.await();
+        var queued = List.of(1, 2, 3).stream()
+                .map(i -> accountWriteEngine.submit(1L, () -> {
+                    applied.add(i);
+                    return i;
+                }))
+                .toList();
+        release.countDown();
+
+        assertThat(first.get()).isEqualTo(0);
+        assertThat(queued.stream().map(CompletableFuture::join).toList()).containsExactly(1, 2, 3);
+        assertThat(applied).containsExactly(0, 1, 2, 3);
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+
+    @Test
+    @DisplayName("Test for submit() method(failed operation does not fail its batch)")
+    void testSubmit_BatchFallback() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        accountWriteEngine.submit(1L, () -> {
+            started.countDown();
+            await(release);
+            return 0;
+        });
+        started.await();
+        var ok = accountWriteEngine.submit(1L, () -> 1);
+        CompletableFuture<Integer> failed = accountWriteEngine.submit(1L, () -> {
+            throw new AccountUpdateException("Balance can not become less than zero after operation");
+        });
+        var next = accountWriteEngine.submit(1L, () -> 3);
+        release.countDown();
+
+        assertThat(ok.get()).isEqualTo(1);
+        assertThat(next.get()).isEqualTo(3);
+        assertThatThrownBy(failed::join)
+                .hasCauseInstanceOf(AccountUpdateException.class)
+                .hasMessageContaining("Balance can not become less than zero after operation");
+    }
+
+    @Test
+    @DisplayName("Test for execute() method(inline mode)")
+    void testExecute_Inline() {
+        var inline = new AccountWriteEngine(new TransactionTemplate(transactionManager), false, 0, 32, 100);
+
+        assertThat(inline.execute(1L, () -> Thread.currentThread().getName()))
+                .isEqualTo(Thread.currentThread().getName());
+        assertThatThrownBy(() -> inline.execute(1L, () -> {
+            throw new AccountUpdateException("You do not have a bank account!");
+        })).isInstanceOf(AccountUpdateException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.budget.planning;
+
+import com.budget.planning.model.BalanceSnapshot;
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.repository.BalanceSnapshotRepository;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.projection.BalanceChangeView;
+import com.budget.planning.service.BalanceSnapshotter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BalanceSnapshotterTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-20T00:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDateTime MIDNIGHT = LocalDateTime.of(2024, 5, 20, 0, 0);
+
+    @Mock
+    BalanceSnapshotRepository balanceSnapshotRepository;
+    @Mock
+    BankAccountRepository bankAccountRepository;
+    @Mock
+    BankHistoryRepository bankHistoryRepository;
+
+    @Test
+    @DisplayName("Test for takeSnapshots() method")
+    void testTakeSnapshots() {
+        var snapshotter = snapshotter();
+
+        when(bankAccountRepository.findLockedPage(0L, Limit.of(2)))
+                .thenReturn(List.of(account(1L, 100), account(2L, 200)));
+        when(bankAccountRepository.findLockedPage(2L, Limit.of(2)))
+                .thenReturn(List.of(account(3L, 300)));
+
+        snapshotter.takeSnapshots();
+
+        verify(balanceSnapshotRepository).saveAll(List.of(snapshot(1L, MIDNIGHT, 100), snapshot(2L, MIDNIGHT, 200)));
+        verify(balanceSnapshotRepository).saveAll(List.of(snapshot(3L, MIDNIGHT, 300)));
+    }
+
+    @Test
+    @DisplayName("Test for backfillCheckpoints() method")
+    void testBackfillCheckpoints() {
+        var snapshotter = snapshotter();
+
+        when(bankAccountRepository.findIdsWithoutCheckpoints(0L, Limit.of(2)))
+                .thenReturn(List.of(1L, 2L));
+        when(bankAccountRepository.findIdsWithoutCheckpoints(2L, Limit.of(2)))
+                .thenReturn(List.of());
+        when(bankAccountRepository.findLockedByIdWithoutCheckpoints(1L))
+                .thenReturn(Optional.of(account(1L, 100)));
+        //covered by another instance between the plain read and the lock
+        when(bankAccountRepository.findLockedByIdWithoutCheckpoints(2L))
+                .thenReturn(Optional.empty());
+        when(bankHistoryRepository.streamChangesByAccountIdNewestFirst(1L))
+                .thenReturn(Stream.of(
+                        new BalanceChangeView(LocalDateTime.of(2024, 5, 19, 10, 0), 10),
+                        new BalanceChangeView(LocalDateTime.of(2024, 5, 19, 9, 0), -20),
+                        new BalanceChangeView(LocalDateTime.of(2024, 5, 18, 12, 0), 50),
+                        new BalanceChangeView(LocalDateTime.of(2024, 5, 18, 12, 0), 5),
+                        new BalanceChangeView(LocalDateTime.of(2024, 5, 17, 8, 0), 15)));
+
+        snapshotter.backfillCheckpoints();
+
+        verify(balanceSnapshotRepository).saveAll(List.of(
+                snapshot(1L, MIDNIGHT, 100),
+                snapshot(1L, LocalDateTime.of(2024, 5, 18, 12, 0), 110),
+                snapshot(1L, LocalDateTime.of(2024, 5, 17, 8, 0), 55),
+                snapshot(1L, LocalDateTime.of(2024, 5, 17, 7, 59, 59), 40)));
+        verify(bankHistoryRepository, never()).streamChangesByAccountIdNewestFirst(2L);
+    }
+
+    @Test
+    @DisplayName("Test for balanceAt() method")
+    void testBalanceAt() {
+        var snapshotter = snapshotter();
+        var asOf = LocalDateTime.of(2024, 5, 22, 12, 0);
+
+        when(balanceSnapshotRepository.findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(1L, asOf))
+                .thenReturn(Optional.of(snapshot(1L, MIDNIGHT, 100)));
+        when(bankHistoryRepository.sumChangesBetween(1L, MIDNIGHT, asOf))
+                .thenReturn(-30L);
+
+        assertThat(snapshotter.balanceAt(1L, asOf))
+                .isEqualTo(70);
+        verify(balanceSnapshotRepository, never()).findFirstByAccountIdAndTakenAtGreaterThanOrderByTakenAt(any(), any());
+    }
+
+    @Test
+    @DisplayName("Test for balanceAt() method(before the first snapshot)")
+    void testBalanceAt_BeforeFirstSnapshot() {
+        var snapshotter = snapshotter();
+        var asOf = LocalDateTime.of(2024, 5, 18, 12, 0);
+
+        when(balanceSnapshotRepository.findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(1L, asOf))
+                .thenReturn(Optional.empty());
+        when(balanceSnapshotRepository.findFirstByAccountIdAndTakenAtGreaterThanOrderByTakenAt(1L, asOf))
+                .thenReturn(Optional.of(snapshot(1L, MIDNIGHT, 100)));
+        when(bankHistoryRepository.sumChangesBetween(1L, asOf, MIDNIGHT))
+                .thenReturn(40L);
+
+        assertThat(snapshotter.balanceAt(1L, asOf))
+                .isEqualTo(60);
+        verify(balanceSnapshotRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Test for balanceAt() method(no snapshot yet)")
+    void testBalanceAt_NoSnapshot() {
+        var snapshotter = snapshotter();
+        var asOf = LocalDateTime.of(2024, 5, 18, 12, 0);
+
+        when(balanceSnapshotRepository.findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(1L, asOf))
+                .thenReturn(Optional.empty());
+        when(balanceSnapshotRepository.findFirstByAccountIdAndTakenAtGreaterThanOrderByTakenAt(1L, asOf))
+                .thenReturn(Optional.empty());
+        when(bankAccountRepository.findById(1L))
+                .thenReturn(Optional.of(account(1L, 100)));
+        when(bankHistoryRepository.sumChangesBetween(1L, asOf, MIDNIGHT))
+                .thenReturn(40L);
+
+        assertThat(snapshotter.balanceAt(1L, asOf))
+                .isEqualTo(60);
+        verify(bankAccountRepository, never()).findLockedPage(any(), any());
+        verify(balanceSnapshotRepository, never()).saveAll(anyList());
+    }
+
+    private BalanceSnapshotter snapshotter() {
+        return new BalanceSnapshotter(balanceSnapshotRepository, bankAccountRepository, bankHistoryRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 2, true, 2, CLOCK);
+    }
+
+    private BankAccount account(Long id, int balance) {
+        return BankAccount.builder().id(id).balance(balance).build();
+    }
+
+    private BalanceSnapshot snapshot(Long accountId, LocalDateTime takenAt, int balance) {
+        return BalanceSnapshot.builder().accountId(accountId).takenAt(takenAt).balance(balance).build();
+    }
+}
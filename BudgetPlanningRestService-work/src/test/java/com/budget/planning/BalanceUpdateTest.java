@@ -0,0 +1,109 @@
+package com.budget.planning;
+
+import com.budget.planning.dto.request.AccountUpdateRequest;
+import com.budget.planning.dto.request.BatchOperationRequest;
+import com.budget.planning.dto.request.BatchRequest;
+import com.budget.planning.exception.AccountUpdateException;
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.UserRepository;
+import com.budget.planning.service.BudgetPlanningService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//without lanes every operation joins the caller's transaction, the way a lane groups the operations of a batch
+@SpringBootTest(properties = {"budget.perf.database = mem:balanceupdatetest", "budget.engine.enabled = false"})
+@ActiveProfiles("perf")
+class BalanceUpdateTest {
+	@Autowired
+	BudgetPlanningService budgetPlanningService;
+
+	@Autowired
+	BankAccountRepository bankAccountRepository;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	User user;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("UPDATE bankaccount SET balance = 10000 WHERE id = 1");
+		entityManagerFactory.getCache().evictAll();
+		user = userRepository.findById(1L).orElseThrow();
+		user.setBankAccount(BankAccount.builder().id(1L).build());
+		user.setUsage_limit(10000);
+	}
+
+	@Test
+	@DisplayName("Test for withdrawAccount() method(two withdrawals in one transaction)")
+	void testWithdrawAccount_SameTransaction() {
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+			budgetPlanningService.withdrawAccount(new AccountUpdateRequest(6000, "bike"), user);
+			budgetPlanningService.withdrawAccount(new AccountUpdateRequest(5000, "phone"), user);
+		}))
+				.isInstanceOf(AccountUpdateException.class)
+				.hasMessage("Balance can not become less than zero after operation");
+
+		transactionTemplate.executeWithoutResult(status -> {
+			assertThat(budgetPlanningService.withdrawAccount(new AccountUpdateRequest(6000, "bike"), user)
+					.getBalance()).isEqualTo(4000);
+			assertThat(budgetPlanningService.applyBatch(batch(3000), user).getBalance())
+					.isEqualTo(1000);
+			assertThat(budgetPlanningService.applyBatch(batch(2000), user).getApplied())
+					.isEqualTo(0);
+			assertThat(budgetPlanningService.withdrawAccount(new AccountUpdateRequest(1000, "tv"), user)
+					.getBalance()).isEqualTo(0);
+		});
+		assertThat(bankAccountRepository.findBalanceById(1L))
+				.isEqualTo(0);
+	}
+
+	@Test
+	@DisplayName("Test for replenishAccount() method(cached accounts)")
+	void testReplenishAccount_CachedAccounts() {
+		bankAccountRepository.findAllById(List.of(1L, 2L));
+
+		assertThat(budgetPlanningService.replenishAccount(new AccountUpdateRequest(500, "payday"), user)
+				.getBalance()).isEqualTo(10500);
+		assertThat(entityManagerFactory.getCache().contains(BankAccount.class, 1L))
+				.isFalse();
+		assertThat(entityManagerFactory.getCache().contains(BankAccount.class, 2L))
+				.isTrue();
+		assertThat(bankAccountRepository.findById(1L).orElseThrow().getBalance())
+				.isEqualTo(10500);
+	}
+
+	private BatchRequest batch(int withdraw) {
+		return BatchRequest.builder()
+				.mode("best_effort")
+				.operations(List.of(BatchOperationRequest.builder().type("withdraw").amount(withdraw)
+						.reason("phone").build()))
+				.build();
+	}
+}
@@ -0,0 +1,47 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.metrics.BudgetMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BudgetMetricsTest {
+    @Test
+    @DisplayName("Test for withdrawalRejected() method")
+    void testWithdrawalRejected() {
+        var registry = new SimpleMeterRegistry();
+        var budgetMetrics = new BudgetMetrics(registry);
+
+        budgetMetrics.withdrawalRejected("balance");
+        budgetMetrics.withdrawalRejected("weekly");
+        budgetMetrics.withdrawalRejected("weekly");
+
+        assertThat(registry.counter("budget.withdrawals.rejected", "reason", "weekly").count())
+                .isEqualTo(2);
+        assertThat(registry.counter("budget.limits.violations", "limit", "weekly").count())
+                .isEqualTo(2);
+        assertThat(registry.find("budget.limits.violations").tag("limit", "balance").counter())
+                .isNull();
+    }
+
+    @Test
+    @DisplayName("Test for onAuthenticationFailure() method")
+    void testOnAuthenticationFailure() {
+        var registry = new SimpleMeterRegistry();
+        var budgetMetrics = new BudgetMetrics(registry);
+
+        budgetMetrics.onAuthenticationFailure(new AuthenticationFailureBadCredentialsEvent(
+                UsernamePasswordAuthenticationToken.unauthenticated("vova@gmail.com", "1234"),
+                new BadCredentialsException("Bad credentials")));
+
+        assertThat(registry.counter("budget.auth.failures", "type", "basic").count())
+                .isEqualTo(1);
+    }
+}
@@ -1,17 +1,23 @@
 package com.budget.planning;
 
+import com.budget.planning.configuration.metrics.BudgetMetrics;
+import com.budget.planning.configuration.retry.ContentionRetryPolicy;
 import com.budget.planning.configuration.security.Role;
 import com.budget.planning.configuration.security.SecurityConfig;
+import com.budget.planning.configuration.security.TokenService;
 import com.budget.planning.configuration.security.UserAdapter;
+import com.budget.planning.configuration.threads.PinningMonitor;
 import com.budget.planning.controller.BudgetPlanningController;
 import com.budget.planning.dto.request.*;
 import com.budget.planning.dto.response.*;
 import com.budget.planning.exception.AccountUpdateException;
 import com.budget.planning.exception.BankHistoryException;
 import com.budget.planning.exception.LimitUpdateException;
+import com.budget.planning.exception.LoginException;
 import com.budget.planning.model.BankAccount;
 import com.budget.planning.model.User;
 import com.budget.planning.service.BudgetPlanningService;
+import com.budget.planning.service.ExportService;
 import com.budget.planning.service.UserDetailsServiceImp;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -31,9 +37,15 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,9 +60,19 @@ public class BudgetPlanningControllerTest {
     BudgetPlanningService budgetPlanningService;
     @MockBean
     UserDetailsServiceImp userDetailsService;
+    @MockBean
+    ExportService exportService;
+    @MockBean
+    ContentionRetryPolicy contentionRetryPolicy;
+    @MockBean
+    PinningMonitor pinningMonitor;
+    @MockBean
+    BudgetMetrics budgetMetrics;
 
     @Autowired
     ObjectMapper mapper;
+    @Autowired
+    TokenService tokenService;
 
     @Test
     @DisplayName("Test for POST /user/register endpoint")
@@ -148,6 +170,65 @@ public class BudgetPlanningControllerTest {
                 .andExpect(content().string("Such a user already exists!"));
     }
 
+    @Test
+    @DisplayName("Test for POST /user/login endpoint")
+    void testLoginEndpoint() throws Exception {
+        var loginRequest = new LoginRequest("vova@gmail.com", "1234");
+        var expect = TokenDTO.builder().access_token("token").token_type("Bearer").expires_in(900L).build();
+
+        when(userDetailsService.login(loginRequest))
+                .thenReturn(expect);
+
+        var requestBuilder = post("/user/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(loginRequest));
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(content().string(mapper.writeValueAsString(expect)));
+    }
+
+    @Test
+    @DisplayName("Test for POST /user/login endpoint(wrong password)")
+    void testLoginEndpoint_WrongPassword() throws Exception {
+        var loginRequest = new LoginRequest("vova@gmail.com", "4321");
+
+        when(userDetailsService.login(loginRequest))
+                .thenThrow(new LoginException("Wrong email or password"));
+
+        var requestBuilder = post("/user/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(loginRequest));
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Wrong email or password"));
+    }
+
+    @Test
+    @DisplayName("Test for bearer token authentication")
+    void testBearerTokenAuthentication() throws Exception {
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.ADMIN)
+                .build();
+        var expect = List.of(BankAccountDTO.builder().id(1L).balance(100).build());
+
+        when(userDetailsService.loadUserByUsername("vova@gmail.com"))
+                .thenReturn(new UserAdapter(user));
+        when(budgetPlanningService.getAllAccounts())
+                .thenReturn(expect);
+
+        mockMvc.perform(get("/account/all")
+                        .header("Authorization", "Bearer " + tokenService.issue("vova@gmail.com")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(mapper.writeValueAsString(expect)));
+        mockMvc.perform(get("/account/all")
+                        .header("Authorization", "Bearer " + tokenService.issue("vova@gmail.com") + "x"))
+                .andExpect(status().isUnauthorized());
+        verify(budgetMetrics).authFailed("token");
+    }
+
     @Test
     @DisplayName("Test for POST /account/register endpoint")
     void testRegisterAccountEndpoint() throws Exception {
@@ -342,6 +423,47 @@ public class BudgetPlanningControllerTest {
                         .value("Balance can not become less than zero after operation"));
     }
 
+    @Test
+    @DisplayName("Test for POST /account/batch endpoint")
+    void testBatchEndpoint() throws Exception {
+        var batchRequest = BatchRequest.builder()
+                .mode("best_effort")
+                .operations(List.of(
+                        BatchOperationRequest.builder().type("replenish").amount(50).reason("payday").build(),
+                        BatchOperationRequest.builder().type("withdraw").amount(500).reason("bike").build()))
+                .build();
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.CHILD)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(200).build())
+                .build();
+
+        var expect = BatchDTO.builder()
+                .account_id(1L)
+                .balance(250)
+                .applied(1)
+                .results(List.of(
+                        new BatchItemDTO(0, "replenish", 50, "applied", null),
+                        new BatchItemDTO(1, "withdraw", 500, "rejected",
+                                "Your usage limit does not allow you to perform this operation")))
+                .build();
+
+        when(budgetPlanningService.applyBatch(batchRequest, user)).thenReturn(expect);
+        SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
+                new UserAdapter(user), null, List.of(new SimpleGrantedAuthority(user.getRole().toString()))
+        ));
+
+        var requestBuilder = post("/account/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(batchRequest));
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(content().string((mapper.writeValueAsString(expect))));
+    }
+
     @Test
     @DisplayName("Test for POST /user/limit endpoint")
     void testUserLimitEndpoint() throws Exception {
@@ -375,6 +497,50 @@ public class BudgetPlanningControllerTest {
                 .andExpect(content().string((mapper.writeValueAsString(expect))));
     }
 
+    @Test
+    @DisplayName("Test for POST /user/spending-limits endpoint")
+    void testSpendingLimitsEndpoint() throws Exception {
+        var limitRequest = SpendingLimitRequest.builder().username("vova2@gmail.com").daily_limit(100).build();
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(1000)
+                .bankAccount(BankAccount.builder().id(1L).balance(200).build())
+                .build();
+
+        var expect = UserWithLimitDTO.builder()
+                .name("vova")
+                .email("vova2@gmail.com")
+                .usage_limit(1)
+                .daily_limit(100)
+                .build();
+
+        when(budgetPlanningService.updateSpendingLimits(limitRequest, user)).thenReturn(expect);
+        SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
+                new UserAdapter(user), null, List.of(new SimpleGrantedAuthority(user.getRole().toString()))
+        ));
+
+        var requestBuilder = post("/user/spending-limits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(limitRequest));
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(content().string((mapper.writeValueAsString(expect))));
+    }
+
+    @Test
+    @WithMockUser(username = "vova@gmail.com", password = "1234", authorities = "CHILD")
+    @DisplayName("Test for POST /user/spending-limits endpoint(wrong role)")
+    void testSpendingLimitsEndpoint_WrongRole() throws Exception {
+        var requestBuilder = post("/user/spending-limits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"vova2@gmail.com\",\"daily_limit\":100}");
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @DisplayName("Test for POST /user/limit endpoint(no user)")
     void testUserLimitEndpointEndpoint_NoUser() throws Exception {
@@ -507,6 +673,152 @@ public class BudgetPlanningControllerTest {
                         .value("No transactions have been performed for this account"));
     }
 
+    @Test
+    @DisplayName("Test for GET /account/summary endpoint")
+    void testAccountSummaryEndpoint() throws Exception {
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(1)
+                .bankAccount(BankAccount.builder().id(1L).balance(1000).build())
+                .build();
+
+        var expect = AccountSummaryDTO.builder()
+                .account_id(1L)
+                .month("2024-05")
+                .replenished(1100L)
+                .withdrawn(30L)
+                .users(List.of(new UserSummaryDTO("vova", "vova@gmail.com", 1100L, 30L, 4)))
+                .build();
+
+        when(budgetPlanningService.getAccountSummary(user, "2024-05")).thenReturn(expect);
+        SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
+                new UserAdapter(user), null, List.of(new SimpleGrantedAuthority(user.getRole().toString()))
+        ));
+
+        var requestBuilder = get("/account/summary?month=2024-05");
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(content().string((mapper.writeValueAsString(expect))));
+    }
+
+    @Test
+    @DisplayName("Test for GET /account/balance endpoint")
+    void testBalanceAtEndpoint() throws Exception {
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(1)
+                .bankAccount(BankAccount.builder().id(1L).balance(1000).build())
+                .build();
+
+        var expect = BalanceDTO.builder()
+                .account_id(1L)
+                .as_of(LocalDateTime.of(2024, 5, 19, 9, 1, 6))
+                .balance(1100)
+                .build();
+
+        when(budgetPlanningService.getBalanceAt(user, "2024-05-19T09:01:06")).thenReturn(expect);
+        SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
+                new UserAdapter(user), null, List.of(new SimpleGrantedAuthority(user.getRole().toString()))
+        ));
+
+        var requestBuilder = get("/account/balance?asOf=2024-05-19T09:01:06");
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(content().string((mapper.writeValueAsString(expect))));
+    }
+
+    @Test
+    @DisplayName("Test for GET /account/history?limit= endpoint")
+    void testAccountHistoryPageEndpoint() throws Exception {
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(1)
+                .bankAccount(BankAccount.builder().id(1L).balance(1000).build())
+                .build();
+
+        var expect = PageDTO.<BankHistoryDTO>builder()
+                .items(List.of(BankHistoryDTO.builder()
+                        .operation("withdraw").reason("notebook").amount(10)
+                        .user(UserWithLimitDTO.builder().name("vova").email("vova@gmail.com").usage_limit(100).build())
+                        .timestamp(LocalDateTime.of(2019, 1, 1, 1, 1))
+                        .build()))
+                .next_cursor("MjAxOS0wMS0wMVQwMTowMXwx")
+                .build();
+
+        when(budgetPlanningService.getAccountHistoryPage(user, 1, "MjAxOS0wMS0wMlQwMTowMXwy")).thenReturn(expect);
+        SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
+                new UserAdapter(user), null, List.of(new SimpleGrantedAuthority(user.getRole().toString()))
+        ));
+
+        var requestBuilder = get("/account/history?limit=1&cursor=MjAxOS0wMS0wMlQwMTowMXwy");
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(content().string((mapper.writeValueAsString(expect))));
+    }
+
+    @Test
+    @DisplayName("Test for GET /account/history/export endpoint")
+    void testAccountHistoryExportEndpoint() throws Exception {
+        var bankAccount = BankAccount.builder().id(1L).balance(1000).build();
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(1)
+                .bankAccount(bankAccount)
+                .build();
+
+        when(exportService.getExportedAccount(user)).thenReturn(bankAccount);
+        doAnswer(invocation -> {
+            invocation.getArgument(2, OutputStream.class)
+                    .write("timestamp,operation,reason,amount,name,email\r\n".getBytes());
+            return null;
+        }).when(exportService).exportAccountHistory(eq(bankAccount), eq(ExportService.Format.CSV), any());
+        SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
+                new UserAdapter(user), null, List.of(new SimpleGrantedAuthority(user.getRole().toString()))
+        ));
+
+        var result = mockMvc.perform(get("/account/history/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=history-1.csv"))
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("timestamp,operation,reason,amount,name,email\r\n"));
+    }
+
+    @Test
+    @DisplayName("Test for GET /account/history/export endpoint(wrong format)")
+    void testAccountHistoryExportEndpoint_WrongFormat() throws Exception {
+        var user = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(1)
+                .bankAccount(BankAccount.builder().id(1L).balance(1000).build())
+                .build();
+
+        SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
+                new UserAdapter(user), null, List.of(new SimpleGrantedAuthority(user.getRole().toString()))
+        ));
+
+        mockMvc.perform(get("/account/history/export?format=xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Wrong export format, use ndjson or csv"));
+    }
+
     @Test
     @WithMockUser(username = "vova@gmail.com", password = "1234", authorities = "ADMIN")
     @DisplayName("Test for POST /user/account endpoint")
@@ -583,6 +895,73 @@ public class BudgetPlanningControllerTest {
                 .andExpect(content().string(mapper.writeValueAsString(expect)));
     }
 
+    @Test
+    @WithMockUser(username = "vova@gmail.com", password = "1234", authorities = "ADMIN")
+    @DisplayName("Test for GET /account/all?limit= endpoint")
+    void testAccountAllPageEndpoint() throws Exception {
+        var expect = PageDTO.<BankAccountDTO>builder()
+                .items(List.of(BankAccountDTO.builder().id(1L).balance(100).build()))
+                .next_cursor("MQ")
+                .build();
+
+        when(budgetPlanningService.getAccountsPage(1, null, 50, null))
+                .thenReturn(expect);
+
+        var requestBuilder = get("/account/all?limit=1&minBalance=50");
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(content().string(mapper.writeValueAsString(expect)));
+    }
+
+    @Test
+    @WithMockUser(username = "vova@gmail.com", password = "1234", authorities = "ADMIN")
+    @DisplayName("Test for GET /account/all/export endpoint")
+    void testAccountAllExportEndpoint() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(3, OutputStream.class).write("id,balance\r\n".getBytes());
+            return null;
+        }).when(exportService).exportAllAccounts(isNull(), eq(0), eq(ExportService.Format.CSV), any());
+
+        var result = mockMvc.perform(get("/account/all/export?format=csv&maxBalance=0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=accounts.csv"))
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id,balance\r\n"));
+    }
+
+    @Test
+    @WithMockUser(username = "vova@gmail.com", password = "1234", authorities = "ADMIN")
+    @DisplayName("Test for GET /account/contention endpoint")
+    void testAccountContentionEndpoint() throws Exception {
+        var expect = List.of(ContentionDTO.builder().account_id(1L).conflicts(12L).retries(11L).give_ups(1L).build());
+
+        when(contentionRetryPolicy.getHotAccounts(5))
+                .thenReturn(expect);
+
+        mockMvc.perform(get("/account/contention?limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(mapper.writeValueAsString(expect)));
+    }
+
+    @Test
+    @WithMockUser(username = "vova@gmail.com", password = "1234", authorities = "ADMIN")
+    @DisplayName("Test for GET /account/pinning endpoint")
+    void testAccountPinningEndpoint() throws Exception {
+        var expect = List.of(PinningDTO.builder()
+                .frame("com.mysql.cj.NativeSession.execSQL:1000").events(3L).total_millis(95L).max_millis(41L)
+                .build());
+
+        when(pinningMonitor.getPinnedFrames(5))
+                .thenReturn(expect);
+
+        mockMvc.perform(get("/account/pinning?limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(mapper.writeValueAsString(expect)));
+    }
+
     @Test
     @WithMockUser(username = "vova@gmail.com", password = "1234", authorities = "ADMIN")
     @DisplayName("Test for DELETE /account/delete endpoint")
@@ -632,5 +1011,21 @@ public class BudgetPlanningControllerTest {
         mockMvc.perform(requestWrongAccountId)
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Write down new limit!"));
+
+        var requestWrongBatchMode = post("/account/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"mode\":\"sometimes\",\"operations\":[{\"type\":\"replenish\"," +
+                        "\"amount\":10,\"reason\":\"payday\"}]}");
+        mockMvc.perform(requestWrongBatchMode)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Write down batch mode, all_or_nothing or best_effort!"));
+
+        var requestWrongBatchOperation = post("/account/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"mode\":\"best_effort\",\"operations\":[{\"type\":\"transfer\"," +
+                        "\"amount\":10,\"reason\":\"payday\"}]}");
+        mockMvc.perform(requestWrongBatchOperation)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Write down type of the operation, replenish or withdraw!"));
     }
 }
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.TestPropertySource;
@@ -27,6 +28,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 @TestPropertySource(locations = {"classpath:testApp.properties"}) //for tests, it is better to use H2 db
@@ -95,6 +97,22 @@ public class BudgetPlanningRepositoryTest {
                 .isEqualTo(expect);
     }
 
+    @Test
+    @DisplayName("Test for unique email in UserRepository")
+    @Sql(statements = {"INSERT INTO user(user_id, name, email, password, role, usage_limit) " +
+            "VALUES (1, 'vova', 'vova@gmail.com', '1234', 2, 100)"})
+    void uniqueEmailTest_UserRepository() {
+        User duplicate = User.builder()
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .build();
+
+        assertThatThrownBy(() -> userRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
     @Test
     @DisplayName("Test for findAllUsersByBankAccount() method in UserRepository")
     @Sql(statements = {"INSERT INTO bankaccount(balance, id) VALUES (100, 1)",
@@ -135,6 +153,16 @@ public class BudgetPlanningRepositoryTest {
                 .isEqualTo(expect);
     }
 
+    @Test
+    @DisplayName("Test for withdraw() method in BankAccountRepository")
+    @Sql(statements = "INSERT INTO bankaccount(balance, id, version) VALUES (100, 1, 0)")
+    void withdrawTest_BankAccountRepository() {
+        assertThat(bankAccountRepository.withdraw(1L, 60)).isEqualTo(1);
+        assertThat(bankAccountRepository.withdraw(1L, 60)).isEqualTo(0);
+        assertThat(bankAccountRepository.replenish(1L, 20)).isEqualTo(1);
+        assertThat(bankAccountRepository.findBalanceById(1L)).isEqualTo(60);
+    }
+
     @Test
     @DisplayName("Test for save() method in BankHistoryRepository")
     @Sql(statements = {"INSERT INTO bankaccount(balance, id) VALUES (100, 1)",
@@ -221,4 +249,26 @@ public class BudgetPlanningRepositoryTest {
                 .hasOnlyElementsOfType(BankHistory.class)
                 .hasSize(0);
     }
+
+    @Test
+    @DisplayName("Test for findAllHistoriesByBankAccountAfter() method in BankHistoryRepository")
+    @Sql(statements = {"INSERT INTO bankaccount(balance, id) VALUES (100, 1), (200, 2)",
+            "INSERT INTO user(user_id, name, email, password, role, usage_limit, account_id) " +
+                    "VALUES (1, 'vova', 'vova@gmail.com', '1234', 2, 100, 1)",
+            "INSERT INTO bankhistory(id, timestamp, operation, reason, amount, user_id, account_id)" +
+                    "VALUES (1, '2019-5-3T12:12:00', 'replenish', 'payday', 100, 1, 1)," +
+                        " (2, '2019-6-14T14:35:00', 'withdraw', 'candy', 10, 1, 1)," +
+                        " (3, '2019-6-15T14:35:00', 'replenish', 'payday', 100, 1, 2)"
+    })
+    void findAllHistoriesByBankAccountAfterTest_BankHistoryRepository() {
+        BankAccount bankAccount = BankAccount.builder().id(1L).balance(100).build();
+
+        List<BankHistory> actual = bankHistoryRepository.findAllHistoriesByBankAccountAfter(bankAccount,
+                LocalDateTime.of(2019, 6, 1, 0, 0));
+        assertThat(actual)
+                .hasOnlyElementsOfType(BankHistory.class)
+                .hasSize(1)
+                .extracting(BankHistory::getId)
+                .containsExactly(2L);
+    }
 }
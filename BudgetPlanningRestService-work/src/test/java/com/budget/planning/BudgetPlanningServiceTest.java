@@ -1,36 +1,57 @@
 package com.budget.planning;
 
+import com.budget.planning.configuration.metrics.BudgetMetrics;
 import com.budget.planning.configuration.security.Role;
+import com.budget.planning.configuration.security.UserPrincipalCache;
 import com.budget.planning.dto.request.AccountRegistrationRequest;
 import com.budget.planning.dto.request.AccountUpdateRequest;
+import com.budget.planning.dto.request.BatchOperationRequest;
+import com.budget.planning.dto.request.BatchRequest;
 import com.budget.planning.dto.request.LimitUpdateRequest;
+import com.budget.planning.dto.request.PageCursor;
+import com.budget.planning.dto.request.SpendingLimitRequest;
 import com.budget.planning.dto.request.UpdateUserRequest;
 import com.budget.planning.dto.response.*;
 import com.budget.planning.exception.AccountUpdateException;
 import com.budget.planning.exception.BankHistoryException;
 import com.budget.planning.exception.LimitUpdateException;
+import com.budget.planning.exception.WithdrawalRejectedException;
 import com.budget.planning.model.BankAccount;
 import com.budget.planning.model.BankHistory;
 import com.budget.planning.model.User;
 import com.budget.planning.repository.BankAccountRepository;
 import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.SpendingSummaryRepository;
 import com.budget.planning.repository.UserRepository;
+import com.budget.planning.repository.projection.BankHistoryView;
+import com.budget.planning.repository.projection.SummaryView;
+import com.budget.planning.service.AccountWriteEngine;
+import com.budget.planning.service.BalanceSnapshotter;
 import com.budget.planning.service.BudgetPlanningService;
+import com.budget.planning.service.HistoryJournal;
+import com.budget.planning.service.SpendingLimiter;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class BudgetPlanningServiceTest {
@@ -40,6 +61,22 @@ public class BudgetPlanningServiceTest {
     BankHistoryRepository bankHistoryRepository;
     @Mock
     BankAccountRepository bankAccountRepository;
+    @Mock
+    UserPrincipalCache userPrincipalCache;
+    @Spy
+    TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    @Mock
+    HistoryJournal historyJournal;
+    @Mock
+    SpendingLimiter spendingLimiter;
+    @Mock
+    SpendingSummaryRepository spendingSummaryRepository;
+    @Mock
+    BalanceSnapshotter balanceSnapshotter;
+    @Mock
+    BudgetMetrics budgetMetrics;
+    @Spy
+    AccountWriteEngine accountWriteEngine = new AccountWriteEngine(transactionTemplate, false, 0, 1, 1);
 
     @InjectMocks
     BudgetPlanningService budgetPlanningService;
@@ -60,11 +97,15 @@ public class BudgetPlanningServiceTest {
 
         var expect = AccountUpdateDTO.builder().account_id(1L).balance(0).build();
 
+        when(userRepository.findById(1L))
+                .thenReturn(Optional.of(user));
         when(bankAccountRepository.save(BankAccount.builder().balance(0).build()))
                 .thenReturn(BankAccount.builder().id(1L).balance(0).build());
 
         assertThat(budgetPlanningService.registerAccount(registerRequest, user))
                 .isEqualTo(expect);
+        verify(userPrincipalCache).evict("vova@gmail.com");
+        verify(balanceSnapshotter).open(BankAccount.builder().id(1L).balance(0).build());
     }
 
     @Test
@@ -78,13 +119,21 @@ public class BudgetPlanningServiceTest {
                 .password("1234")
                 .role(Role.PARENT)
                 .usage_limit(100)
-                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .bankAccount(BankAccount.builder().id(1L).build())
                 .build();
 
         var expect = AccountUpdateDTO.builder().account_id(1L).balance(20).build();
 
+        when(bankAccountRepository.replenish(1L, 10))
+                .thenReturn(1);
+        when(bankAccountRepository.findBalanceById(1L))
+                .thenReturn(20);
+        when(historyJournal.record(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
         assertThat(budgetPlanningService.replenishAccount(updateRequest, user))
                 .isEqualTo(expect);
+        verify(spendingSummaryRepository).add(1L, YearMonth.now().atDay(1), 1L, "replenish", 10, 1);
     }
 
     @Test
@@ -117,11 +166,18 @@ public class BudgetPlanningServiceTest {
                 .password("1234")
                 .role(Role.PARENT)
                 .usage_limit(100)
-                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .bankAccount(BankAccount.builder().id(1L).build())
                 .build();
 
         var expect = AccountUpdateDTO.builder().account_id(1L).balance(0).build();
 
+        when(bankAccountRepository.withdraw(1L, 10))
+                .thenReturn(1);
+        when(bankAccountRepository.findBalanceById(1L))
+                .thenReturn(0);
+        when(historyJournal.record(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
         assertThat(budgetPlanningService.withdrawAccount(updateRequest, user))
                 .isEqualTo(expect);
     }
@@ -162,6 +218,7 @@ public class BudgetPlanningServiceTest {
         assertThatThrownBy(() -> budgetPlanningService.withdrawAccount(updateRequest, user))
                 .isInstanceOf(AccountUpdateException.class)
                 .hasMessage("Your usage limit does not allow you to perform this operation");
+        verify(budgetMetrics).withdrawalRejected("usage");
     }
 
     @Test
@@ -175,12 +232,268 @@ public class BudgetPlanningServiceTest {
                 .password("1234")
                 .role(Role.PARENT)
                 .usage_limit(100)
-                .bankAccount(BankAccount.builder().id(1L).balance(5).build())
+                .bankAccount(BankAccount.builder().id(1L).build())
                 .build();
 
+        when(bankAccountRepository.withdraw(1L, 10))
+                .thenReturn(0);
+        when(bankAccountRepository.existsById(1L))
+                .thenReturn(true);
+
         assertThatThrownBy(() -> budgetPlanningService.withdrawAccount(updateRequest, user))
                 .isInstanceOf(AccountUpdateException.class)
                 .hasMessage("Balance can not become less than zero after operation");
+        verify(budgetMetrics).withdrawalRejected("balance");
+    }
+
+    @Test
+    @DisplayName("Test for withdrawAccount() method(spending limit reached)")
+    void testWithdrawAccount_SpendingLimitReached() {
+        var updateRequest = AccountUpdateRequest.builder().amount(10).reason("notebook").build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.CHILD)
+                .usage_limit(100)
+                .daily_limit(15)
+                .bankAccount(BankAccount.builder().id(1L).build())
+                .build();
+
+        doThrow(new WithdrawalRejectedException("daily"))
+                .when(spendingLimiter).charge(user, 10);
+
+        assertThatThrownBy(() -> budgetPlanningService.withdrawAccount(updateRequest, user))
+                .isInstanceOf(AccountUpdateException.class)
+                .hasMessage("Your daily spending limit does not allow you to perform this operation");
+        verify(bankAccountRepository, never()).withdraw(1L, 10);
+        verify(budgetMetrics).withdrawalRejected("daily");
+    }
+
+    @Test
+    @DisplayName("Test for withdrawAccount() method(account deleted)")
+    void testWithdrawAccount_AccountDeleted() {
+        var updateRequest = AccountUpdateRequest.builder().amount(10).reason("notebook").build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).build())
+                .build();
+
+        when(bankAccountRepository.withdraw(1L, 10))
+                .thenReturn(0);
+        when(bankAccountRepository.existsById(1L))
+                .thenReturn(false);
+
+        assertThatThrownBy(() -> budgetPlanningService.withdrawAccount(updateRequest, user))
+                .isInstanceOf(AccountUpdateException.class)
+                .hasMessage("You do not have a bank account!");
+        verify(bankHistoryRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Test for applyBatch() method(best effort)")
+    void testApplyBatch_BestEffort() {
+        var batchRequest = BatchRequest.builder()
+                .mode("best_effort")
+                .operations(List.of(
+                        BatchOperationRequest.builder().type("replenish").amount(50).reason("payday").build(),
+                        BatchOperationRequest.builder().type("withdraw").amount(500).reason("bike").build(),
+                        BatchOperationRequest.builder().type("withdraw").amount(200).reason("phone").build(),
+                        BatchOperationRequest.builder().type("withdraw").amount(100).reason("notebook").build()))
+                .build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(300)
+                .bankAccount(BankAccount.builder().id(1L).build())
+                .build();
+
+        var expect = BatchDTO.builder()
+                .account_id(1L)
+                .balance(50)
+                .applied(2)
+                .results(List.of(
+                        new BatchItemDTO(0, "replenish", 50, "applied", null),
+                        new BatchItemDTO(1, "withdraw", 500, "rejected",
+                                "Your usage limit does not allow you to perform this operation"),
+                        new BatchItemDTO(2, "withdraw", 200, "rejected",
+                                "Balance can not become less than zero after operation"),
+                        new BatchItemDTO(3, "withdraw", 100, "applied", null)))
+                .build();
+
+        when(bankAccountRepository.findLockedBalanceById(1L))
+                .thenReturn(100);
+        when(historyJournal.record(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(budgetPlanningService.applyBatch(batchRequest, user))
+                .isEqualTo(expect);
+        verify(bankAccountRepository).replenish(1L, -50);
+        verify(historyJournal).record(argThat((List<BankHistory> histories) -> histories.size() == 2
+                && histories.get(0).getOperation().equals("replenish")
+                && histories.get(1).getReason().equals("notebook")));
+        verify(spendingSummaryRepository).add(1L, YearMonth.now().atDay(1), 1L, "replenish", 50, 1);
+        verify(spendingSummaryRepository).add(1L, YearMonth.now().atDay(1), 1L, "withdraw", 100, 1);
+    }
+
+    @Test
+    @DisplayName("Test for applyBatch() method(all or nothing)")
+    void testApplyBatch_AllOrNothing() {
+        var batchRequest = BatchRequest.builder()
+                .mode("all_or_nothing")
+                .operations(List.of(
+                        BatchOperationRequest.builder().type("replenish").amount(50).reason("payday").build(),
+                        BatchOperationRequest.builder().type("withdraw").amount(200).reason("phone").build()))
+                .build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(300)
+                .bankAccount(BankAccount.builder().id(1L).build())
+                .build();
+
+        var expect = BatchDTO.builder()
+                .account_id(1L)
+                .balance(100)
+                .applied(0)
+                .results(List.of(
+                        new BatchItemDTO(0, "replenish", 50, "skipped", null),
+                        new BatchItemDTO(1, "withdraw", 200, "rejected",
+                                "Balance can not become less than zero after operation")))
+                .build();
+
+        when(bankAccountRepository.findLockedBalanceById(1L))
+                .thenReturn(100);
+
+        assertThat(budgetPlanningService.applyBatch(batchRequest, user))
+                .isEqualTo(expect);
+        verify(bankAccountRepository, never()).replenish(any(), anyInt());
+        verifyNoInteractions(historyJournal);
+    }
+
+    @Test
+    @DisplayName("Test for applyBatch() method(spending limit reached)")
+    void testApplyBatch_SpendingLimitReached() {
+        var batchRequest = BatchRequest.builder()
+                .mode("best_effort")
+                .operations(List.of(
+                        BatchOperationRequest.builder().type("withdraw").amount(30).reason("candy").build(),
+                        BatchOperationRequest.builder().type("withdraw").amount(30).reason("candy").build()))
+                .build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.CHILD)
+                .usage_limit(300)
+                .daily_limit(50)
+                .bankAccount(BankAccount.builder().id(1L).build())
+                .build();
+
+        var expect = BatchDTO.builder()
+                .account_id(1L)
+                .balance(70)
+                .applied(1)
+                .results(List.of(
+                        new BatchItemDTO(0, "withdraw", 30, "applied", null),
+                        new BatchItemDTO(1, "withdraw", 30, "rejected",
+                                "Your daily spending limit does not allow you to perform this operation")))
+                .build();
+
+        when(bankAccountRepository.findLockedBalanceById(1L))
+                .thenReturn(100);
+        when(spendingLimiter.check(user, 30))
+                .thenReturn(Optional.empty());
+        when(spendingLimiter.check(user, 60))
+                .thenReturn(Optional.of("daily"));
+        when(historyJournal.record(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(budgetPlanningService.applyBatch(batchRequest, user))
+                .isEqualTo(expect);
+        verify(spendingLimiter).charge(user, 30);
+        verify(budgetMetrics).withdrawalRejected("daily");
+    }
+
+    @Test
+    @DisplayName("Test for applyBatch() method(no bank account)")
+    void testApplyBatch_NoBankAccount() {
+        var batchRequest = BatchRequest.builder()
+                .mode("best_effort")
+                .operations(List.of(
+                        BatchOperationRequest.builder().type("replenish").amount(50).reason("payday").build()))
+                .build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(300)
+                .bankAccount(null)
+                .build();
+
+        assertThatThrownBy(() -> budgetPlanningService.applyBatch(batchRequest, user))
+                .isInstanceOf(AccountUpdateException.class)
+                .hasMessage("You do not have a bank account!");
+    }
+
+    @Test
+    @DisplayName("Test for updateSpendingLimits() method")
+    void testUpdateSpendingLimits() {
+        var limitRequest = SpendingLimitRequest.builder()
+                .username("vova2@gmail.com")
+                .daily_limit(100)
+                .monthly_limit(1500)
+                .build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .build();
+        var child = User.builder()
+                .user_id(2L)
+                .name("vova")
+                .email("vova2@gmail.com")
+                .password("1234")
+                .role(Role.CHILD)
+                .usage_limit(10)
+                .weekly_limit(500)
+                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .build();
+
+        var expect = UserWithLimitDTO.builder()
+                .name("vova")
+                .email("vova2@gmail.com")
+                .usage_limit(10)
+                .daily_limit(100)
+                .monthly_limit(1500)
+                .build();
+
+        when(userRepository.findUserByEmail("vova2@gmail.com"))
+                .thenReturn(Optional.ofNullable(child));
+
+        assertThat(budgetPlanningService.updateSpendingLimits(limitRequest, user))
+                .isEqualTo(expect);
+        verify(userRepository).save(child);
+        verify(userPrincipalCache).evict("vova2@gmail.com");
     }
 
     @Test
@@ -217,6 +530,7 @@ public class BudgetPlanningServiceTest {
 
         assertThat(budgetPlanningService.updateLimit(limitRequest, user))
                 .isEqualTo(expect);
+        verify(userPrincipalCache).evict("vova2@gmail.com");
     }
 
     @Test
@@ -293,11 +607,9 @@ public class BudgetPlanningServiceTest {
                 .user(UserWithLimitDTO.builder().name("vova").email("vova@gmail.com").usage_limit(100).build())
                 .build());
 
-        when(bankHistoryRepository.findAllHistoriesByBankAccountForLastMonth(user.getBankAccount()))
-                .thenReturn(List.of(BankHistory.builder()
-                        .operation("withdraw").reason("notebook")
-                        .amount(10).bankAccount(bankAccount)
-                        .timestamp(dateTime).user(user).build()));
+        when(bankHistoryRepository.findHistoryViewsByAccountIdForLastMonth(1L))
+                .thenReturn(List.of(new BankHistoryView(1L, dateTime, "withdraw", "notebook", 10,
+                        "vova", "vova@gmail.com", 100)));
 
         assertThat(budgetPlanningService.getAccountHistory(user))
                 .isEqualTo(expect);
@@ -334,7 +646,7 @@ public class BudgetPlanningServiceTest {
                 .bankAccount(BankAccount.builder().id(1L).balance(10).build())
                 .build();
 
-        when(bankHistoryRepository.findAllHistoriesByBankAccountForLastMonth(user.getBankAccount()))
+        when(bankHistoryRepository.findHistoryViewsByAccountIdForLastMonth(1L))
                 .thenReturn(List.of());
 
         assertThatThrownBy(() -> budgetPlanningService.getAccountHistory(user))
@@ -342,6 +654,156 @@ public class BudgetPlanningServiceTest {
                 .hasMessage("No transactions have been performed for this account");
     }
 
+    @Test
+    @DisplayName("Test for getAccountSummary() method")
+    void testGetAccountSummary() {
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .build();
+
+        var expect = AccountSummaryDTO.builder()
+                .account_id(1L)
+                .month("2024-05")
+                .replenished(1100L)
+                .withdrawn(330L)
+                .users(List.of(
+                        new UserSummaryDTO("kolya", "kolya@gmail.com", 0L, 300L, 2),
+                        new UserSummaryDTO("vova", "vova@gmail.com", 1100L, 30L, 4)))
+                .build();
+
+        when(spendingSummaryRepository.findSummaryViews(1L, LocalDate.of(2024, 5, 1)))
+                .thenReturn(List.of(
+                        new SummaryView("vova", "vova@gmail.com", "replenish", 1100L, 1),
+                        new SummaryView("vova", "vova@gmail.com", "withdraw", 30L, 3),
+                        new SummaryView("kolya", "kolya@gmail.com", "withdraw", 300L, 2)));
+
+        assertThat(budgetPlanningService.getAccountSummary(user, "2024-05"))
+                .isEqualTo(expect);
+    }
+
+    @Test
+    @DisplayName("Test for getAccountSummary() method(wrong month)")
+    void testGetAccountSummary_WrongMonth() {
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .build();
+
+        assertThatThrownBy(() -> budgetPlanningService.getAccountSummary(user, "05.2024"))
+                .isInstanceOf(BankHistoryException.class)
+                .hasMessage("Wrong month, use the yyyy-MM format");
+        verifyNoInteractions(spendingSummaryRepository);
+    }
+
+    @Test
+    @DisplayName("Test for getBalanceAt() method")
+    void testGetBalanceAt() {
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .build();
+        var endOfDay = LocalDateTime.of(2024, 5, 19, 23, 59, 59, 999_999_999);
+
+        var expect = BalanceDTO.builder().account_id(1L).as_of(endOfDay).balance(1100).build();
+
+        when(balanceSnapshotter.balanceAt(1L, endOfDay))
+                .thenReturn(1100);
+
+        assertThat(budgetPlanningService.getBalanceAt(user, "2024-05-19"))
+                .isEqualTo(expect);
+    }
+
+    @Test
+    @DisplayName("Test for getBalanceAt() method(wrong date)")
+    void testGetBalanceAt_WrongDate() {
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .build();
+
+        assertThatThrownBy(() -> budgetPlanningService.getBalanceAt(user, "19.05.2024"))
+                .isInstanceOf(BankHistoryException.class)
+                .hasMessage("Wrong date, use the yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss format");
+        verifyNoInteractions(balanceSnapshotter);
+    }
+
+    @Test
+    @DisplayName("Test for getAccountHistoryPage() method")
+    void testGetAccountHistoryPage() {
+        var bankAccount = BankAccount.builder().id(1L).balance(10).build();
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(bankAccount)
+                .build();
+        var newest = LocalDateTime.of(2019, 1, 3, 1, 1);
+        var older = LocalDateTime.of(2019, 1, 2, 1, 1);
+        var cursor = new PageCursor(LocalDateTime.of(2019, 1, 4, 1, 1), 9L).encode();
+
+        var userDTO = UserWithLimitDTO.builder().name("vova").email("vova@gmail.com").usage_limit(100).build();
+        var expect = PageDTO.<BankHistoryDTO>builder()
+                .items(List.of(
+                        BankHistoryDTO.builder().operation("withdraw").reason("notebook").amount(10)
+                                .timestamp(newest).user(userDTO).build(),
+                        BankHistoryDTO.builder().operation("replenish").reason("payday").amount(100)
+                                .timestamp(older).user(userDTO).build()))
+                .next_cursor(new PageCursor(older, 7L).encode())
+                .build();
+
+        when(bankHistoryRepository.findHistoryPageBefore(1L, LocalDateTime.of(2019, 1, 4, 1, 1), 9L,
+                Limit.of(3)))
+                .thenReturn(List.of(
+                        new BankHistoryView(8L, newest, "withdraw", "notebook", 10, "vova", "vova@gmail.com", 100),
+                        new BankHistoryView(7L, older, "replenish", "payday", 100, "vova", "vova@gmail.com", 100),
+                        new BankHistoryView(6L, older, "replenish", "payday", 100, "vova", "vova@gmail.com", 100)));
+
+        assertThat(budgetPlanningService.getAccountHistoryPage(user, 2, cursor))
+                .isEqualTo(expect);
+    }
+
+    @Test
+    @DisplayName("Test for getAccountHistoryPage() method(wrong cursor)")
+    void testGetAccountHistoryPage_WrongCursor() {
+        var user = User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .password("1234")
+                .role(Role.PARENT)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(10).build())
+                .build();
+
+        assertThatThrownBy(() -> budgetPlanningService.getAccountHistoryPage(user, 2, "not a cursor"))
+                .isInstanceOf(BankHistoryException.class)
+                .hasMessage("Wrong cursor");
+    }
+
     @Test
     @DisplayName("Test for updateBankAccount() method")
     void testUpdateBankAccount() {
@@ -372,6 +834,7 @@ public class BudgetPlanningServiceTest {
 
         assertThat(budgetPlanningService.updateBankAccount(userRequest))
                 .isEqualTo(expect);
+        verify(userPrincipalCache).evict("vova@gmail.com");
     }
 
     @Test
@@ -417,31 +880,92 @@ public class BudgetPlanningServiceTest {
         var expect = List.of(BankAccountDTO.builder().id(1L).balance(100).build(),
                 BankAccountDTO.builder().id(2L).balance(2200).build());
 
-        when(bankAccountRepository.findAll())
-                .thenReturn(List.of(BankAccount.builder().id(1L).balance(100).build(),
-                        BankAccount.builder().id(2L).balance(2200).build()));
+        when(bankAccountRepository.findAllAccountDTOs())
+                .thenReturn(expect);
 
         assertThat(budgetPlanningService.getAllAccounts())
                 .isEqualTo(expect);
     }
 
+    @Test
+    @DisplayName("Test for getAccountsPage() method")
+    void testGetAccountsPage() {
+        var expect = PageDTO.<BankAccountDTO>builder()
+                .items(List.of(BankAccountDTO.builder().id(3L).balance(100).build(),
+                        BankAccountDTO.builder().id(5L).balance(2200).build()))
+                .next_cursor(new PageCursor(null, 5L).encode())
+                .build();
+
+        when(bankAccountRepository.findAccountPage(2L, 100, null, Limit.of(3)))
+                .thenReturn(List.of(BankAccountDTO.builder().id(3L).balance(100).build(),
+                        BankAccountDTO.builder().id(5L).balance(2200).build(),
+                        BankAccountDTO.builder().id(8L).balance(500).build()));
+
+        assertThat(budgetPlanningService.getAccountsPage(2, new PageCursor(null, 2L).encode(), 100, null))
+                .isEqualTo(expect);
+    }
+
+    @Test
+    @DisplayName("Test for getAccountsPage() method(last page)")
+    void testGetAccountsPage_LastPage() {
+        var expect = PageDTO.<BankAccountDTO>builder()
+                .items(List.of(BankAccountDTO.builder().id(1L).balance(100).build()))
+                .build();
+
+        when(bankAccountRepository.findAccountPage(0L, null, null, Limit.of(3)))
+                .thenReturn(List.of(BankAccountDTO.builder().id(1L).balance(100).build()));
+
+        assertThat(budgetPlanningService.getAccountsPage(2, null, null, null))
+                .isEqualTo(expect);
+    }
+
+    @Test
+    @DisplayName("Test for getAccountsPage() method(wrong page size)")
+    void testGetAccountsPage_WrongPageSize() {
+        assertThatThrownBy(() -> budgetPlanningService.getAccountsPage(501, null, null, null))
+                .isInstanceOf(AccountUpdateException.class)
+                .hasMessage("Page size must be between 1 and 500");
+    }
+
     @Test
     @DisplayName("Test for deleteAccount() method")
     void testDeleteAccount() {
-        when(bankAccountRepository.findById(1L))
-                .thenReturn(Optional.ofNullable(BankAccount.builder().id(1L).balance(100).build()));
+        when(bankAccountRepository.existsById(1L))
+                .thenReturn(true);
+        when(userRepository.findAllEmailsByBankAccountId(1L))
+                .thenReturn(List.of("vova@gmail.com", "vova2@gmail.com"));
 
         assertThat(budgetPlanningService.deleteAccount(1L))
                 .isEqualTo(true);
+        verify(userRepository).detachAllUsersFromBankAccount(1L);
+        verify(userPrincipalCache).evict(List.of("vova@gmail.com", "vova2@gmail.com"));
+        verify(spendingSummaryRepository).deleteAllByAccountId(1L);
+        verify(balanceSnapshotter).deleteSnapshots(1L);
+        verify(bankAccountRepository).deleteById(1L);
+    }
+
+    @Test
+    @DisplayName("Test for deleteAccount() method(large account)")
+    void testDeleteAccount_LargeAccount() {
+        when(bankAccountRepository.existsById(1L))
+                .thenReturn(true);
+        when(bankHistoryRepository.deleteHistoriesChunkByAccountId(1L, 1000))
+                .thenReturn(1000, 1000, 17);
+
+        assertThat(budgetPlanningService.deleteAccount(1L))
+                .isEqualTo(true);
+        verify(bankHistoryRepository, times(3)).deleteHistoriesChunkByAccountId(1L, 1000);
+        verify(bankHistoryRepository).deleteAllHistoriesByAccountId(1L);
     }
 
     @Test
     @DisplayName("Test for deleteAccount() method(wrong id)")
     void testDeleteAccount_WrongId() {
-        when(bankAccountRepository.findById(1L))
-                .thenReturn(Optional.empty());
+        when(bankAccountRepository.existsById(1L))
+                .thenReturn(false);
 
         assertThat(budgetPlanningService.deleteAccount(1L))
                 .isEqualTo(false);
+        verifyNoInteractions(userRepository, bankHistoryRepository);
     }
 }
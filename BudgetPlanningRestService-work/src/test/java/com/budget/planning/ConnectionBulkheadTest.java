@@ -0,0 +1,67 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.threads.ConnectionBulkhead;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionBulkheadTest {
+    @Mock
+    DataSource dataSource;
+    @Mock
+    Connection connection;
+
+    @Test
+    @DisplayName("Test for getConnection() method")
+    void testGetConnection() throws Exception {
+        var bulkhead = new ConnectionBulkhead(dataSource, 2, Duration.ofMillis(10));
+
+        when(dataSource.getConnection())
+                .thenReturn(connection);
+
+        var first = bulkhead.getConnection();
+        var second = bulkhead.getConnection();
+        assertThatThrownBy(bulkhead::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("All database connections are busy");
+
+        first.close();
+        first.close();
+        assertThat(bulkhead.getAvailablePermits())
+                .isEqualTo(1);
+        verify(connection, times(2)).close();
+        second.close();
+        assertThat(bulkhead.getAvailablePermits())
+                .isEqualTo(2);
+        verify(dataSource, times(2)).getConnection();
+    }
+
+    @Test
+    @DisplayName("Test for getConnection() method(pool fails)")
+    void testGetConnection_PoolFails() throws Exception {
+        var bulkhead = new ConnectionBulkhead(dataSource, 1, Duration.ofMillis(10));
+
+        when(dataSource.getConnection())
+                .thenThrow(new SQLException("Database is down"));
+
+        assertThatThrownBy(bulkhead::getConnection)
+                .isInstanceOf(SQLException.class)
+                .hasMessage("Database is down");
+        assertThat(bulkhead.getAvailablePermits())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.retry.ContentionRetryPolicy;
+import com.budget.planning.configuration.retry.RetryOnConflict;
+import com.budget.planning.configuration.retry.RetryOnConflictAspect;
+import com.budget.planning.dto.response.ContentionDTO;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ContentionRetryPolicyTest {
+    ContentionRetryPolicy contentionRetryPolicy = new ContentionRetryPolicy(3, Duration.ofMillis(1),
+            Duration.ofMillis(2));
+
+    @Test
+    @DisplayName("Test for execute() method(succeeds after conflicts)")
+    void testExecute_Retried() throws Throwable {
+        var calls = new AtomicInteger();
+
+        String result = contentionRetryPolicy.execute(1L, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("BankAccount", 1L);
+            }
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(contentionRetryPolicy.getHotAccounts(10))
+                .containsExactly(ContentionDTO.builder().account_id(1L).conflicts(2L).retries(2L).give_ups(0L).build());
+    }
+
+    @Test
+    @DisplayName("Test for execute() method(gives up)")
+    void testExecute_GivesUp() {
+        var calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> contentionRetryPolicy.execute(2L, () -> {
+            calls.incrementAndGet();
+            throw new ConcurrencyFailureException("Lock wait timeout exceeded");
+        })).isInstanceOf(ConcurrencyFailureException.class);
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(contentionRetryPolicy.getHotAccounts(10))
+                .containsExactly(ContentionDTO.builder().account_id(2L).conflicts(3L).retries(2L).give_ups(1L).build());
+    }
+
+    @Test
+    @DisplayName("Test for execute() method(other exceptions are not retried)")
+    void testExecute_NotRetried() {
+        var calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> contentionRetryPolicy.execute(3L, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Balance can not become less than zero after operation");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(contentionRetryPolicy.getHotAccounts(10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test for @RetryOnConflict aspect")
+    void testRetryOnConflictAspect() {
+        var factory = new AspectJProxyFactory(new Writer());
+        factory.addAspect(new RetryOnConflictAspect(contentionRetryPolicy));
+        Writer writer = factory.getProxy();
+
+        assertThat(writer.write(List.of(7L, 8L))).isEqualTo(2);
+        assertThat(contentionRetryPolicy.getHotAccounts(10))
+                .extracting(ContentionDTO::getAccount_id)
+                .containsExactly(7L);
+    }
+
+    static class Writer {
+        private int calls;
+
+        @RetryOnConflict(account = "#accounts[0]")
+        public int write(List<Long> accounts) {
+            if (++calls == 1) {
+                throw new ObjectOptimisticLockingFailureException("BankAccount", accounts.get(0));
+            }
+            return calls;
+        }
+    }
+}
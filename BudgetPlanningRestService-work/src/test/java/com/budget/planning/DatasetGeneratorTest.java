@@ -0,0 +1,187 @@
+package com.budget.planning;
+
+import com.budget.planning.generator.DatasetGenerator;
+import com.budget.planning.generator.DatasetSettings;
+import com.budget.planning.generator.DatasetTable;
+import com.budget.planning.generator.DatasetWriter;
+import com.budget.planning.generator.FileDatasetWriter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatasetGeneratorTest {
+    private static final DatasetGenerator.Ids EMPTY = new DatasetGenerator.Ids(0, 0, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test for generate() method(same seed, same rows)")
+    void testGenerate_Deterministic() {
+        var first = new Rows();
+        var second = new Rows();
+        var otherSeed = new Rows();
+
+        new DatasetGenerator(settings(42)).generate(first, EMPTY);
+        new DatasetGenerator(settings(42)).generate(second, EMPTY);
+        new DatasetGenerator(settings(7)).generate(otherSeed, EMPTY);
+
+        assertThat(first.lines)
+                .isEqualTo(second.lines)
+                .isNotEqualTo(otherSeed.lines);
+        assertThat(first.statements)
+                .containsExactly("INSERT INTO id_generator(sequence_name, next_val) VALUES ('bankhistory', " +
+                        (first.of(DatasetTable.BANKHISTORY).size() + 51) + ") ON DUPLICATE KEY UPDATE next_val = " +
+                        (first.of(DatasetTable.BANKHISTORY).size() + 51),
+                        "INSERT INTO id_generator(sequence_name, next_val) VALUES ('balance_snapshot', " +
+                        (first.of(DatasetTable.BALANCE_SNAPSHOT).size() + 51) + ") ON DUPLICATE KEY UPDATE next_val = " +
+                        (first.of(DatasetTable.BALANCE_SNAPSHOT).size() + 51));
+    }
+
+    @Test
+    @DisplayName("Test for generate() method(balances, summaries and ids)")
+    void testGenerate_Consistent() {
+        var rows = new Rows();
+
+        var last = new DatasetGenerator(settings(42)).generate(rows, new DatasetGenerator.Ids(2, 1, 100, 0));
+
+        Map<Object, Long> balances = new HashMap<>();
+        Map<Object, LocalDateTime> opened = new HashMap<>();
+        rows.of(DatasetTable.BALANCE_SNAPSHOT).forEach(x -> {
+            balances.put(x[1], ((Integer) x[3]).longValue());
+            opened.put(x[1], (LocalDateTime) x[2]);
+        });
+        Map<String, Long> summaries = new HashMap<>();
+        for (Object[] history : rows.of(DatasetTable.BANKHISTORY)) {
+            long change = history[2].equals("withdraw") ? -(Integer) history[4] : (Integer) history[4];
+            balances.merge(history[6], change, Long::sum);
+            summaries.merge(((LocalDateTime) history[1]).toLocalDate().withDayOfMonth(1) + " " + history[5] + " " +
+                    history[2], ((Integer) history[4]).longValue(), Long::sum);
+            assertThat(balances.get(history[6]))
+                    .isPositive();
+            assertThat((LocalDateTime) history[1])
+                    .isAfter(opened.get(history[6]))
+                    .isBefore(LocalDateTime.of(2024, 1, 1, 0, 0, 1));
+        }
+
+        assertThat(rows.of(DatasetTable.BANKACCOUNT))
+                .hasSize(200)
+                .allSatisfy(x -> assertThat(((Integer) x[1]).longValue()).isEqualTo(balances.get(x[0])));
+        assertThat(rows.of(DatasetTable.SPENDING_SUMMARY))
+                .allSatisfy(x -> assertThat(x[4])
+                        .isEqualTo(summaries.get((LocalDate) x[1] + " " + x[2] + " " + x[3])))
+                .hasSize(summaries.size());
+        assertThat(rows.of(DatasetTable.BANKHISTORY).size())
+                .isBetween(19_800, 20_200);
+        assertThat(last)
+                .isEqualTo(new DatasetGenerator.Ids(202, 1 + rows.of(DatasetTable.USER).size(),
+                        100 + rows.of(DatasetTable.BANKHISTORY).size(), 200));
+        assertThat(rows.of(DatasetTable.BANKHISTORY).get(0)[0])
+                .isEqualTo(101L);
+    }
+
+    @Test
+    @DisplayName("Test for generate() method(skewed activity, paydays and children)")
+    void testGenerate_Distributions() {
+        var rows = new Rows();
+
+        new DatasetGenerator(settings(42)).generate(rows, EMPTY);
+
+        Map<Object, Integer> activity = new HashMap<>();
+        rows.of(DatasetTable.BANKHISTORY).forEach(x -> activity.merge(x[6], 1, Integer::sum));
+        int[] sorted = activity.values().stream().mapToInt(x -> x).sorted().toArray();
+        assertThat(sorted[sorted.length - 1])
+                .isGreaterThan(20 * sorted[sorted.length / 2]);
+
+        List<Object[]> paydays = rows.of(DatasetTable.BANKHISTORY).stream()
+                .filter(x -> x[3].equals("payday"))
+                .toList();
+        assertThat(paydays)
+                .isNotEmpty()
+                .allSatisfy(x -> assertThat(((LocalDateTime) x[1]).getDayOfMonth()).isIn(1, 15));
+
+        Map<Object, Integer> roles = new HashMap<>();
+        rows.of(DatasetTable.USER).forEach(x -> roles.put(x[0], (Integer) x[4]));
+        assertThat(roles)
+                .containsValues(0, 1);
+        assertThat(rows.of(DatasetTable.BANKHISTORY))
+                .filteredOn(x -> roles.get(x[5]) == 1 && x[2].equals("withdraw"))
+                .isNotEmpty()
+                .allSatisfy(x -> assertThat((Integer) x[4]).isLessThanOrEqualTo(100));
+    }
+
+    @Test
+    @DisplayName("Test for FileDatasetWriter(csv files and load.sql)")
+    void testFileDatasetWriter() throws Exception {
+        try (var writer = new FileDatasetWriter(directory)) {
+            writer.write(DatasetTable.BANKACCOUNT, 1L, 100, 0L);
+            writer.write(DatasetTable.BANKHISTORY, 1L, LocalDateTime.of(2024, 5, 19, 9, 1, 6), "replenish",
+                    "say \"hi\"", 100, 1L, null);
+            writer.execute("UPDATE id_generator SET next_val = 52");
+        }
+
+        assertThat(Files.readAllLines(directory.resolve("bankhistory.csv")))
+                .containsExactly("1,2024-05-19 09:01:06,\"replenish\",\"say \\\"hi\\\"\",100,1,\\N");
+        assertThat(Files.readAllLines(directory.resolve("load.sql")))
+                .hasSize(7)
+                .contains("UPDATE id_generator SET next_val = 52;")
+                .anySatisfy(x -> assertThat(x).startsWith("LOAD DATA LOCAL INFILE '" +
+                        directory.resolve("bankaccount.csv").toAbsolutePath()).endsWith("(id, balance, version);"));
+    }
+
+    private DatasetSettings settings(long seed) {
+        return DatasetSettings.builder()
+                .seed(seed)
+                .families(200)
+                .historyRows(20_000)
+                .from(LocalDateTime.of(2022, 1, 1, 0, 0))
+                .until(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .activitySkew(1.0)
+                .secondParentShare(0.6)
+                .maxChildren(3)
+                .childWithdrawShare(0.3)
+                .replenishShare(0.15)
+                .paydayShare(0.7)
+                .paydays(List.of(1, 15))
+                .password("hash")
+                .build();
+    }
+
+    private static class Rows implements DatasetWriter {
+        final List<String> lines = new ArrayList<>();
+        final Map<DatasetTable, List<Object[]>> tables = new HashMap<>();
+        final List<String> statements = new ArrayList<>();
+
+        @Override
+        public void write(DatasetTable table, Object... values) {
+            lines.add(table + Arrays.toString(values));
+            tables.computeIfAbsent(table, x -> new ArrayList<>()).add(values);
+        }
+
+        @Override
+        public void execute(String statement) {
+            statements.add(statement);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        List<Object[]> of(DatasetTable table) {
+            return tables.getOrDefault(table, List.of());
+        }
+    }
+}
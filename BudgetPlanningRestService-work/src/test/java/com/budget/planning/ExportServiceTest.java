@@ -0,0 +1,131 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.security.Role;
+import com.budget.planning.dto.response.BankAccountDTO;
+import com.budget.planning.exception.BankHistoryException;
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.projection.BankHistoryView;
+import com.budget.planning.service.ExportService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ExportServiceTest {
+    @Mock
+    BankHistoryRepository bankHistoryRepository;
+    @Mock
+    BankAccountRepository bankAccountRepository;
+    @Spy
+    ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @InjectMocks
+    ExportService exportService;
+
+    final BankAccount bankAccount = BankAccount.builder().id(1L).balance(100).build();
+
+    @Test
+    @DisplayName("Test for exportAccountHistory() method(ndjson)")
+    void testExportAccountHistory_Ndjson() throws Exception {
+        when(bankHistoryRepository.streamAllHistoryViewsByAccountId(1L))
+                .thenReturn(Stream.of(
+                        new BankHistoryView(1L, LocalDateTime.of(2019, 1, 1, 1, 1), "replenish", "payday", 100,
+                                "vova", "vova@gmail.com", 100),
+                        new BankHistoryView(2L, LocalDateTime.of(2019, 1, 2, 1, 1), "withdraw", "candy", 10,
+                                "vova", "vova@gmail.com", 100)));
+
+        var out = new ByteArrayOutputStream();
+        exportService.exportAccountHistory(bankAccount, ExportService.Format.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"operation\":\"replenish\",\"reason\":\"payday\",\"timestamp\":\"2019-01-01T01:01:00\"," +
+                        "\"amount\":100,\"user\":{\"name\":\"vova\",\"email\":\"vova@gmail.com\",\"usage_limit\":100}}\n" +
+                "{\"operation\":\"withdraw\",\"reason\":\"candy\",\"timestamp\":\"2019-01-02T01:01:00\"," +
+                        "\"amount\":10,\"user\":{\"name\":\"vova\",\"email\":\"vova@gmail.com\",\"usage_limit\":100}}\n");
+    }
+
+    @Test
+    @DisplayName("Test for exportAccountHistory() method(csv)")
+    void testExportAccountHistory_Csv() throws Exception {
+        when(bankHistoryRepository.streamAllHistoryViewsByAccountId(1L))
+                .thenReturn(Stream.of(
+                        new BankHistoryView(1L, LocalDateTime.of(2019, 1, 2, 1, 1), "withdraw", "candy, \"big\" one", 10,
+                                "vova", "vova@gmail.com", 100)));
+
+        var out = new ByteArrayOutputStream();
+        exportService.exportAccountHistory(bankAccount, ExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "timestamp,operation,reason,amount,name,email\r\n" +
+                "2019-01-02T01:01:00,withdraw,\"candy, \"\"big\"\" one\",10,vova,vova@gmail.com\r\n");
+    }
+
+    @Test
+    @DisplayName("Test for exportAllAccounts() method(ndjson)")
+    void testExportAllAccounts_Ndjson() throws Exception {
+        when(bankAccountRepository.streamAllAccountDTOs(100, null))
+                .thenReturn(Stream.of(BankAccountDTO.builder().id(1L).balance(100).build(),
+                        BankAccountDTO.builder().id(2L).balance(2200).build()));
+
+        var out = new ByteArrayOutputStream();
+        exportService.exportAllAccounts(100, null, ExportService.Format.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":1,\"balance\":100}\n{\"id\":2,\"balance\":2200}\n");
+    }
+
+    @Test
+    @DisplayName("Test for exportAllAccounts() method(csv)")
+    void testExportAllAccounts_Csv() throws Exception {
+        when(bankAccountRepository.streamAllAccountDTOs(null, null))
+                .thenReturn(Stream.of(BankAccountDTO.builder().id(1L).balance(100).build()));
+
+        var out = new ByteArrayOutputStream();
+        exportService.exportAllAccounts(null, null, ExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("id,balance\r\n1,100\r\n");
+    }
+
+    @Test
+    @DisplayName("Test for getExportedAccount() method(no bank account)")
+    void testGetExportedAccount_NoBankAccount() {
+        var user = User.builder().user_id(1L).name("vova").email("vova@gmail.com").role(Role.PARENT).build();
+
+        assertThatThrownBy(() -> exportService.getExportedAccount(user))
+                .isInstanceOf(BankHistoryException.class)
+                .hasMessage("You do not have a bank account!");
+    }
+
+    @Test
+    @DisplayName("Test for export format parsing(wrong format)")
+    void testFormat_WrongFormat() {
+        assertThatThrownBy(() -> ExportService.Format.of("xml"))
+                .isInstanceOf(BankHistoryException.class)
+                .hasMessage("Wrong export format, use ndjson or csv");
+    }
+}
@@ -0,0 +1,74 @@
+package com.budget.planning;
+
+import com.budget.planning.dto.request.UserRegistrationRequest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//a real server and a client that stalls, so the export is still writing when the 1s async timeout has passed
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"budget.perf.database = mem:exporttimeouttest", "spring.mvc.async.request-timeout = 1s"})
+@ActiveProfiles("perf")
+class ExportTimeoutTest {
+	static final int ROWS = 300_000;
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	TestRestTemplate restTemplate;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	@DisplayName("Test for exportAccountHistory() method(streams past the async request timeout)")
+	void testExportAccountHistory_SlowClient() throws Exception {
+		restTemplate.postForEntity("/user/register",
+				new UserRegistrationRequest("anna", "anna@gmail.com", "1234", "parent", 1L), String.class);
+		jdbcTemplate.update("INSERT INTO bankhistory(id, timestamp, operation, reason, amount, account_id, user_id) " +
+				"SELECT 1000000 + \"X\", DATEADD(SECOND, \"X\", TIMESTAMP '2024-01-01 00:00:00'), 'replenish', 'payday', " +
+				"10, 1, 1 FROM SYSTEM_RANGE(1, " + ROWS + ")");
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port +
+						"/account/history/export?format=csv"))
+				.header("Authorization", "Basic " + Base64.getEncoder()
+						.encodeToString("anna@gmail.com:1234".getBytes(StandardCharsets.UTF_8)))
+				.build();
+		HttpResponse<java.io.InputStream> response = HttpClient.newHttpClient()
+				.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+		long lines = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(),
+				StandardCharsets.UTF_8))) {
+			reader.readLine();
+			Thread.sleep(3000);
+			while (reader.readLine() != null) {
+				lines++;
+			}
+		}
+
+		assertThat(response.statusCode())
+				.isEqualTo(200);
+		assertThat(lines)
+				.isEqualTo(ROWS);
+	}
+}
@@ -0,0 +1,102 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.security.Role;
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.BankHistory;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@TestPropertySource(locations = {"classpath:testApp.properties"},
+		properties = "spring.jpa.properties.hibernate.generate_statistics = true")
+@Testcontainers
+class HistoryInsertBatchingIT {
+	private static final int ROWS = 5000;
+
+	@Container
+	private static final MySQLContainer<?> mysqlcontainer = new MySQLContainer<>("mysql:latest")
+			.withUrlParam("rewriteBatchedStatements", "true");
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	BankAccountRepository bankAccountRepository;
+
+	@Autowired
+	BankHistoryRepository bankHistoryRepository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry){
+		registry.add("spring.datasource.url", mysqlcontainer::getJdbcUrl);
+		registry.add("spring.datasource.username", mysqlcontainer::getUsername);
+		registry.add("spring.datasource.password", mysqlcontainer::getPassword);
+	}
+
+	@Test
+	@DisplayName("Test for bankhistory inserts(pooled ids, jdbc batches)")
+	void historyInsertBatching() {
+		BankAccount bankAccount = bankAccountRepository.save(BankAccount.builder().balance(0).build());
+		User user = userRepository.save(User.builder()
+				.name("vova")
+				.email("vova@gmail.com")
+				.password("1234")
+				.role(Role.PARENT)
+				.bankAccount(bankAccount)
+				.build());
+		entityManager.flush();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		bankHistoryRepository.saveAll(histories(user, bankAccount, ROWS));
+		entityManager.flush();
+		entityManager.clear();
+
+		//ids come from the pooled generator, so the rows go out as jdbc batches instead of one insert per row
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(ROWS / 10);
+		assertThat(bankHistoryRepository.count()).isEqualTo(ROWS);
+	}
+
+	private List<BankHistory> histories(User user, BankAccount bankAccount, int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> BankHistory.builder()
+						.operation(i % 2 == 0 ? "replenish" : "withdraw")
+						.reason("benchmark")
+						.timestamp(LocalDateTime.now())
+						.amount(i)
+						.user(entityManager.getEntityManager().getReference(User.class, user.getUser_id()))
+						.bankAccount(entityManager.getEntityManager().getReference(BankAccount.class, bankAccount.getId()))
+						.build())
+				.toList();
+	}
+}
@@ -0,0 +1,176 @@
+package com.budget.planning;
+
+import com.budget.planning.model.BankAccount;
+import com.budget.planning.model.BankHistory;
+import com.budget.planning.model.HistoryCheckpoint;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.BankAccountRepository;
+import com.budget.planning.repository.BankHistoryRepository;
+import com.budget.planning.repository.HistoryCheckpointRepository;
+import com.budget.planning.repository.UserRepository;
+import com.budget.planning.service.HistoryJournal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class HistoryJournalTest {
+    @Mock
+    BankHistoryRepository bankHistoryRepository;
+    @Mock
+    HistoryCheckpointRepository historyCheckpointRepository;
+    @Mock
+    BankAccountRepository bankAccountRepository;
+    @Mock
+    UserRepository userRepository;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test for record() method(sync)")
+    void testRecord_Sync() throws Exception {
+        var journal = journal("sync");
+        journal.start();
+        var histories = List.of(history("payday"));
+
+        assertThat(journal.record(histories))
+                .isCompleted();
+        verify(bankHistoryRepository).saveAll(histories);
+        verifyNoInteractions(historyCheckpointRepository);
+    }
+
+    @Test
+    @DisplayName("Test for record() method(group commit)")
+    void testRecord_GroupCommit() throws Exception {
+        var journal = journal("group_commit");
+        journal.start();
+
+        journal.record(List.of(history("payday"))).get(5, TimeUnit.SECONDS);
+        journal.shutdown();
+
+        verify(bankHistoryRepository).saveAll(anyList());
+        verify(historyCheckpointRepository).save(
+                HistoryCheckpoint.builder().name(checkpoint("history.journal")).seq(1L).build());
+    }
+
+    @Test
+    @DisplayName("Test for record() method(after commit only)")
+    void testRecord_AfterCommit() throws Exception {
+        var journal = journal("group_commit");
+        journal.start();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            var committed = journal.record(List.of(history("payday")));
+            var rolledBack = journal.record(List.of(history("bike")));
+            var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(committed)
+                    .isNotDone();
+
+            synchronizations.get(0).afterCommit();
+            synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            committed.get(5, TimeUnit.SECONDS);
+            journal.shutdown();
+
+            assertThat(rolledBack)
+                    .isNotDone();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(bankHistoryRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Test for record() method(async, replayed after restart)")
+    void testRecord_AsyncReplay() throws Exception {
+        when(bankHistoryRepository.saveAll(anyList()))
+                .thenThrow(new CannotCreateTransactionException("Database is down"));
+        var journal = journal("async");
+        journal.start();
+
+        assertThat(journal.record(List.of(history("payday"), history("bike"))))
+                .isCompleted();
+        journal.shutdown();
+        assertThat(Files.readAllLines(directory.resolve("history.journal")))
+                .hasSize(2);
+
+        doReturn(List.of()).when(bankHistoryRepository).saveAll(anyList());
+        var restarted = journal("async");
+        restarted.start();
+        restarted.shutdown();
+
+        verify(bankHistoryRepository, atLeast(2)).saveAll(argThat((List<BankHistory> histories) ->
+                histories.size() == 2 && histories.get(1).getReason().equals("bike")));
+        verify(historyCheckpointRepository).save(
+                HistoryCheckpoint.builder().name(checkpoint("history.journal")).seq(2L).build());
+        assertThat(Files.readAllLines(directory.resolve("history.journal")))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test for record() method(checkpoint of another journal)")
+    void testRecord_OtherCheckpoint() throws Exception {
+        when(historyCheckpointRepository.findById(checkpoint("other.journal")))
+                .thenReturn(Optional.empty());
+        var journal = journal("group_commit", "other.journal");
+        journal.start();
+
+        journal.record(List.of(history("payday"))).get(5, TimeUnit.SECONDS);
+        journal.shutdown();
+
+        verify(historyCheckpointRepository, never()).findById(checkpoint("history.journal"));
+        verify(bankHistoryRepository).saveAll(anyList());
+        verify(historyCheckpointRepository).save(
+                HistoryCheckpoint.builder().name(checkpoint("other.journal")).seq(1L).build());
+    }
+
+    private HistoryJournal journal(String durability) {
+        return journal(durability, "history.journal");
+    }
+
+    private HistoryJournal journal(String durability, String journalFile) {
+        return new HistoryJournal(bankHistoryRepository, historyCheckpointRepository, bankAccountRepository,
+                userRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ObjectMapper().findAndRegisterModules(), durability, Duration.ofMillis(10), 50, 100,
+                directory.resolve(journalFile).toString(), "test");
+    }
+
+    private String checkpoint(String journalFile) {
+        return HistoryJournal.checkpointName("test", directory.resolve(journalFile));
+    }
+
+    private BankHistory history(String reason) {
+        return BankHistory.builder()
+                .operation("replenish")
+                .reason(reason)
+                .timestamp(LocalDateTime.now())
+                .amount(10)
+                .user(User.builder().user_id(1L).build())
+                .bankAccount(BankAccount.builder().id(1L).build())
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.budget.planning;
+
+import com.budget.planning.dto.request.AccountUpdateRequest;
+import com.budget.planning.dto.request.UserRegistrationRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+//the perf profile has to boot and serve the main flows without MySQL or Docker
+@SpringBootTest(properties = "budget.perf.database = mem:perfprofiletest")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+class PerfProfileTest {
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ObjectMapper mapper;
+
+	final RequestPostProcessor admin = SecurityMockMvcRequestPostProcessors
+			.httpBasic("vova@gmail.com", "1234");
+	final RequestPostProcessor parent = SecurityMockMvcRequestPostProcessors
+			.httpBasic("anna@gmail.com", "1234");
+
+	@Test
+	@DisplayName("Test for perf profile(seeded from data.sql, account operations)")
+	void testPerfProfile() throws Exception {
+		mockMvc.perform(get("/account/all").with(admin))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].balance").value(10000));
+
+		var registrationRequest = new UserRegistrationRequest("anna", "anna@gmail.com", "1234", "parent", 1L);
+		mockMvc.perform(post("/user/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(mapper.writeValueAsString(registrationRequest)))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(post("/account/replenish")
+						.with(parent)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(mapper.writeValueAsString(new AccountUpdateRequest(500, "payday"))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance").value(10500));
+		mockMvc.perform(post("/account/withdraw")
+						.with(parent)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(mapper.writeValueAsString(new AccountUpdateRequest(300, "bike"))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance").value(10200));
+
+		mockMvc.perform(get("/account/history").with(parent))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2));
+		mockMvc.perform(get("/account/summary").with(parent))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.replenished").value(500))
+				.andExpect(jsonPath("$.withdrawn").value(300));
+		mockMvc.perform(get("/account/balance").with(parent))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.balance").value(10200));
+
+		mockMvc.perform(delete("/account/delete").param("id", "2").with(admin))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,110 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.datasource.ReplicaRoutingDataSource;
+import com.budget.planning.configuration.datasource.ReplicationLagGuard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRoutingDataSourceTest {
+    @Mock
+    DataSource primary;
+    @Mock
+    DataSource replica;
+    @Mock
+    Connection primaryConnection;
+    @Mock
+    Connection replicaConnection;
+
+    AtomicLong nanos = new AtomicLong();
+    ReplicationLagGuard replicationLagGuard = new ReplicationLagGuard(Duration.ofSeconds(2), 100, nanos::get);
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Test for getConnection() method(read only transaction)")
+    void testGetConnection_ReadOnly() throws Exception {
+        var dataSource = new ReplicaRoutingDataSource(primary, replica, replicationLagGuard);
+
+        when(primary.getConnection())
+                .thenReturn(primaryConnection);
+        when(replica.getConnection())
+                .thenReturn(replicaConnection);
+
+        assertThat(dataSource.getConnection())
+                .isSameAs(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(dataSource.getConnection())
+                .isSameAs(replicaConnection);
+    }
+
+    @Test
+    @DisplayName("Test for getConnection() method(read right after a write)")
+    void testGetConnection_RecentWrite() throws Exception {
+        var dataSource = new ReplicaRoutingDataSource(primary, replica, replicationLagGuard);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("vova@gmail.com", null));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        when(primary.getConnection())
+                .thenReturn(primaryConnection);
+        when(replica.getConnection())
+                .thenReturn(replicaConnection);
+
+        replicationLagGuard.wrote("vova@gmail.com");
+        replicationLagGuard.wrote("anna@gmail.com");
+        assertThat(dataSource.getConnection())
+                .isSameAs(primaryConnection);
+
+        nanos.addAndGet(Duration.ofSeconds(3).toNanos());
+        assertThat(dataSource.getConnection())
+                .isSameAs(replicaConnection);
+        assertThat(replicationLagGuard.mustReadPrimary("anna@gmail.com"))
+                .isFalse();
+    }
+
+    @Test
+    @DisplayName("Test for getConnection() method(read only work of a write request)")
+    void testGetConnection_WriteRequest() throws Exception {
+        var dataSource = new ReplicaRoutingDataSource(primary, replica, replicationLagGuard);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        when(primary.getConnection())
+                .thenReturn(primaryConnection);
+        when(replica.getConnection())
+                .thenReturn(replicaConnection);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(
+                new MockHttpServletRequest("DELETE", "/account/delete")));
+        assertThat(dataSource.getConnection())
+                .isSameAs(primaryConnection);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(
+                new MockHttpServletRequest("GET", "/account/all")));
+        assertThat(dataSource.getConnection())
+                .isSameAs(replicaConnection);
+    }
+}
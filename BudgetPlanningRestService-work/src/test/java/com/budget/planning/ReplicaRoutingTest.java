@@ -0,0 +1,89 @@
+package com.budget.planning;
+
+import com.budget.planning.dto.request.AccountUpdateRequest;
+import com.budget.planning.dto.request.UserRegistrationRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.sql.DriverManager;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+//two unrelated embedded databases, so every response shows which one it was read from
+@SpringBootTest(properties = {"budget.perf.database = mem:replicarouting",
+		"budget.datasource.replica.url = " + ReplicaRoutingTest.REPLICA_URL,
+		"budget.datasource.replica.username = sa",
+		"budget.datasource.replica.max-lag = 1m"})
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+class ReplicaRoutingTest {
+	static final String REPLICA_URL = "jdbc:h2:mem:replicarouting_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+			"NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ObjectMapper mapper;
+
+	final RequestPostProcessor admin = SecurityMockMvcRequestPostProcessors
+			.httpBasic("vova@gmail.com", "1234");
+	final RequestPostProcessor parent = SecurityMockMvcRequestPostProcessors
+			.httpBasic("anna@gmail.com", "1234");
+
+	@BeforeAll
+	static void createReplica() throws Exception {
+		try (var connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+			 var statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE bankaccount(id BIGINT PRIMARY KEY, balance INT, version BIGINT)");
+			statement.execute("INSERT INTO bankaccount(id, balance, version) VALUES (99, 1, 0)");
+		}
+	}
+
+	@Test
+	@DisplayName("Test for replica routing(read only work on the replica, reads after a write on the primary)")
+	void testReplicaRouting() throws Exception {
+		mockMvc.perform(get("/account/all").with(admin))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(99));
+
+		var registrationRequest = new UserRegistrationRequest("anna", "anna@gmail.com", "1234", "parent", 1L);
+		mockMvc.perform(post("/user/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(mapper.writeValueAsString(registrationRequest)))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/account/replenish")
+						.with(parent)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(mapper.writeValueAsString(new AccountUpdateRequest(500, "payday"))))
+				.andExpect(status().isOk());
+
+		//the replica has no history table at all
+		mockMvc.perform(get("/account/history").with(parent))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].reason").value("payday"));
+
+		mockMvc.perform(delete("/account/delete").param("id", "2").with(admin))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/account/all").with(admin))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(jsonPath("$[0].balance").value(10500));
+	}
+}
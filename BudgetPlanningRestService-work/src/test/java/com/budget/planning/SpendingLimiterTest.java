@@ -0,0 +1,146 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.security.Role;
+import com.budget.planning.exception.WithdrawalRejectedException;
+import com.budget.planning.model.SpendingCounter;
+import com.budget.planning.model.User;
+import com.budget.planning.repository.SpendingCounterRepository;
+import com.budget.planning.service.SpendingLimiter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SpendingLimiterTest {
+    //a wednesday, the week started on 2024-05-20 and the month on 2024-05-01
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-22T10:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    SpendingCounterRepository spendingCounterRepository;
+
+    @Test
+    @DisplayName("Test for charge() method")
+    void testCharge() {
+        var spendingLimiter = new SpendingLimiter(spendingCounterRepository, 100, CLOCK);
+        var child = child(100, null, null);
+
+        when(spendingCounterRepository.findById(1L))
+                .thenReturn(Optional.empty());
+        when(spendingCounterRepository.saveAndFlush(any()))
+                .thenAnswer(x -> x.<SpendingCounter>getArgument(0).toBuilder().version(0L).build());
+        when(spendingCounterRepository.update(any()))
+                .thenReturn(1);
+
+        spendingLimiter.charge(child, 60);
+        spendingLimiter.charge(child, 40);
+
+        assertThatThrownBy(() -> spendingLimiter.charge(child, 1))
+                .isInstanceOf(WithdrawalRejectedException.class)
+                .hasMessage("Your daily spending limit does not allow you to perform this operation")
+                .hasFieldOrPropertyWithValue("reason", "daily");
+        verify(spendingCounterRepository).saveAndFlush(counter(LocalDate.of(2024, 5, 22), 60, 60, 60, null));
+        verify(spendingCounterRepository).update(counter(LocalDate.of(2024, 5, 22), 100, 100, 100, 0L));
+        verify(spendingCounterRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Test for check() method(new day)")
+    void testCheck_NewDay() {
+        var spendingLimiter = new SpendingLimiter(spendingCounterRepository, 100, CLOCK);
+        var child = child(100, 500, 600);
+
+        when(spendingCounterRepository.findById(1L))
+                .thenReturn(Optional.of(counter(LocalDate.of(2024, 5, 21), 100, 450, 550, 3L)));
+
+        assertThat(spendingLimiter.check(child, 50))
+                .isEmpty();
+        assertThat(spendingLimiter.check(child, 51))
+                .contains("weekly");
+    }
+
+    @Test
+    @DisplayName("Test for check() method(new month)")
+    void testCheck_NewMonth() {
+        var spendingLimiter = new SpendingLimiter(spendingCounterRepository, 100,
+                Clock.fixed(Instant.parse("2024-06-01T10:00:00Z"), ZoneOffset.UTC));
+        var child = child(null, null, 600);
+
+        when(spendingCounterRepository.findById(1L))
+                .thenReturn(Optional.of(counter(LocalDate.of(2024, 5, 31), 100, 450, 600, 3L)));
+
+        assertThat(spendingLimiter.check(child, 600))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test for charge() method(changed by another request)")
+    void testCharge_Conflict() {
+        var spendingLimiter = new SpendingLimiter(spendingCounterRepository, 100, CLOCK);
+        var child = child(100, null, null);
+
+        when(spendingCounterRepository.findById(1L))
+                .thenReturn(Optional.of(counter(LocalDate.of(2024, 5, 22), 10, 10, 10, 3L)));
+        when(spendingCounterRepository.update(any()))
+                .thenReturn(0);
+
+        assertThatThrownBy(() -> spendingLimiter.charge(child, 10))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        spendingLimiter.check(child, 10);
+        verify(spendingCounterRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Test for charge() method(not a child)")
+    void testCharge_Parent() {
+        var spendingLimiter = new SpendingLimiter(spendingCounterRepository, 100, CLOCK);
+        var parent = child(1, 1, 1);
+        parent.setRole(Role.PARENT);
+
+        spendingLimiter.charge(parent, 10);
+
+        assertThat(spendingLimiter.check(parent, 10))
+                .isEmpty();
+        verifyNoInteractions(spendingCounterRepository);
+    }
+
+    private User child(Integer daily, Integer weekly, Integer monthly) {
+        return User.builder()
+                .user_id(1L)
+                .name("vova")
+                .email("vova@gmail.com")
+                .role(Role.CHILD)
+                .usage_limit(1000)
+                .daily_limit(daily)
+                .weekly_limit(weekly)
+                .monthly_limit(monthly)
+                .build();
+    }
+
+    private SpendingCounter counter(LocalDate day, int daySpent, int weekSpent, int monthSpent, Long version) {
+        return SpendingCounter.builder()
+                .userId(1L)
+                .dayStart(day)
+                .daySpent(daySpent)
+                .weekStart(LocalDate.of(2024, 5, 20))
+                .weekSpent(weekSpent)
+                .monthStart(LocalDate.of(2024, 5, 1))
+                .monthSpent(monthSpent)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.budget.planning;
+
+import com.budget.planning.configuration.security.TokenService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenServiceTest {
+    final byte[] secret = "secret-secret-secret-secret-1234".getBytes(StandardCharsets.UTF_8);
+    final Instant now = Instant.parse("2024-05-19T09:00:00Z");
+
+    TokenService tokenService = new TokenService(secret, Duration.ofMinutes(15), Clock.fixed(now, ZoneOffset.UTC));
+
+    @Test
+    @DisplayName("Test for issue() and verify() methods")
+    void testIssueAndVerify() {
+        String token = tokenService.issue("vova@gmail.com");
+
+        assertThat(tokenService.verify(token)).contains("vova@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Test for verify() method(expired token)")
+    void testVerify_Expired() {
+        String token = tokenService.issue("vova@gmail.com");
+        var later = new TokenService(secret, Duration.ofMinutes(15),
+                Clock.fixed(now.plus(Duration.ofMinutes(15)), ZoneOffset.UTC));
+
+        assertThat(later.verify(token)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test for verify() method(tampered token)")
+    void testVerify_Tampered() {
+        String token = tokenService.issue("vova@gmail.com");
+        String forged = new TokenService("another-secret".getBytes(StandardCharsets.UTF_8), Duration.ofDays(1),
+                Clock.fixed(now, ZoneOffset.UTC)).issue("admin@gmail.com");
+
+        assertThat(tokenService.verify(forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'))))
+                .isEmpty();
+        assertThat(tokenService.verify(forged)).isEmpty();
+        assertThat(tokenService.verify("not a token")).isEmpty();
+        assertThat(tokenService.verify("bm90.a!token")).isEmpty();
+    }
+}
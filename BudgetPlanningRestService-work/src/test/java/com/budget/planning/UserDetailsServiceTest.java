@@ -1,24 +1,36 @@
 package com.budget.planning;
 
+import com.budget.planning.configuration.metrics.BudgetMetrics;
+import com.budget.planning.configuration.security.Role;
+import com.budget.planning.configuration.security.TokenService;
 import com.budget.planning.configuration.security.UserAdapter;
+import com.budget.planning.configuration.security.UserPrincipalCache;
+import com.budget.planning.dto.request.LoginRequest;
 import com.budget.planning.dto.request.UserRegistrationRequest;
+import com.budget.planning.dto.response.TokenDTO;
+import com.budget.planning.exception.LoginException;
 import com.budget.planning.model.BankAccount;
 import com.budget.planning.model.User;
 import com.budget.planning.repository.BankAccountRepository;
 import com.budget.planning.repository.UserRepository;
 import com.budget.planning.service.UserDetailsServiceImp;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,6 +45,12 @@ public class UserDetailsServiceTest {
     BankAccountRepository bankAccountRepository;
     @Mock
     PasswordEncoder passwordEncoder;
+    @Mock
+    TokenService tokenService;
+    @Mock
+    BudgetMetrics budgetMetrics;
+    @Spy
+    UserPrincipalCache userPrincipalCache = new UserPrincipalCache(100, Duration.ofMinutes(5));
 
     @InjectMocks
     UserDetailsServiceImp userDetailsService;
@@ -96,6 +114,27 @@ public class UserDetailsServiceTest {
         assertThat(userDetailsService.register(userRegistrationRequest)).isEqualTo(expect);
     }
 
+    @Test
+    @DisplayName("Test for registration, registered concurrently")
+    void testRegistration_RegisteredConcurrently() {
+        ResponseEntity<String> expect = new ResponseEntity<>("Such a user already exists!",
+                HttpStatus.BAD_REQUEST);
+        UserRegistrationRequest userRegistrationRequest = new UserRegistrationRequest(
+                "vova",
+                "vova@gmail.com",
+                "1234",
+                "PARENT",
+                0L
+        );
+
+        when(userRepository.findUserByEmail(userRegistrationRequest.getEmail()))
+                .thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'vova@gmail.com'"));
+
+        assertThat(userDetailsService.register(userRegistrationRequest)).isEqualTo(expect);
+    }
+
     @Test
     @DisplayName("Test for registration, wrong role")
     void testRegistration_WrongRole() {
@@ -115,6 +154,41 @@ public class UserDetailsServiceTest {
         assertThat(userDetailsService.register(userRegistrationRequest)).isEqualTo(expect);
     }
 
+    @Test
+    @DisplayName("Test for login")
+    void testLogin() {
+        var expect = TokenDTO.builder().access_token("token").token_type("Bearer").expires_in(900L).build();
+        User user = User.builder().email("vova@gmail.com").password("hash").build();
+
+        when(userRepository.findUserByEmail("vova@gmail.com"))
+                .thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("1234", "hash"))
+                .thenReturn(true);
+        when(tokenService.issue("vova@gmail.com"))
+                .thenReturn("token");
+        when(tokenService.getTtl())
+                .thenReturn(Duration.ofMinutes(15));
+
+        assertThat(userDetailsService.login(new LoginRequest("vova@gmail.com", "1234"))).isEqualTo(expect);
+    }
+
+    @Test
+    @DisplayName("Test for login, wrong password")
+    void testLogin_WrongPassword() {
+        User user = User.builder().email("vova@gmail.com").password("hash").build();
+
+        when(userRepository.findUserByEmail("vova@gmail.com"))
+                .thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("4321", "hash"))
+                .thenReturn(false);
+
+        assertThatThrownBy(() -> userDetailsService.login(new LoginRequest("vova@gmail.com", "4321")))
+                .isInstanceOf(LoginException.class)
+                .hasMessage("Wrong email or password");
+        verify(budgetMetrics).authFailed("login");
+        verifyNoInteractions(tokenService);
+    }
+
     @Test
     @DisplayName("Test for authentication")
     void testAuthentication() {
@@ -128,6 +202,61 @@ public class UserDetailsServiceTest {
         assertThat(userDetailsService.loadUserByUsername(email)).isEqualTo(expect);
     }
 
+    @Test
+    @DisplayName("Test for authentication, cached principal")
+    void testAuthentication_Cached() {
+        String email = "email@gmail.com";
+        User user = User.builder()
+                .user_id(1L)
+                .email(email)
+                .role(Role.CHILD)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).balance(1000).build())
+                .build();
+        User expect = User.builder()
+                .user_id(1L)
+                .email(email)
+                .role(Role.CHILD)
+                .usage_limit(100)
+                .bankAccount(BankAccount.builder().id(1L).build())
+                .build();
+
+        when(userRepository.findUserByEmail(email))
+                .thenReturn(Optional.of(user));
+
+        var first = (UserAdapter) userDetailsService.loadUserByUsername(email);
+        first.getUser().setUsage_limit(1);
+        var second = (UserAdapter) userDetailsService.loadUserByUsername(email);
+
+        assertThat(second.getUser()).isEqualTo(expect);
+        verify(userRepository, times(1)).findUserByEmail(email);
+
+        userPrincipalCache.evict(email);
+        userDetailsService.loadUserByUsername(email);
+
+        verify(userRepository, times(2)).findUserByEmail(email);
+    }
+
+    @Test
+    @DisplayName("Test for authentication, cache metrics")
+    void testAuthentication_CacheMetrics() {
+        String email = "vova@gmail.com";
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userPrincipalCache.bindTo(registry);
+
+        when(userRepository.findUserByEmail(email))
+                .thenReturn(Optional.of(User.builder().email(email).password("1234").role(Role.PARENT).build()));
+
+        userDetailsService.loadUserByUsername(email);
+        userDetailsService.loadUserByUsername(email);
+        userDetailsService.loadUserByUsername(email);
+
+        assertThat(registry.get("cache.gets").tags("cache", "principal", "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tags("cache", "principal", "result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
     @Test
     @DisplayName("Test for authentication, user not found")
     void testAuthentication_NoUser() {